@@ -0,0 +1,110 @@
+import com.grivera.generator.sensors.DistanceKernel;
+import com.grivera.generator.sensors.NodeStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the scalar and the vectorized distance kernels on random positions, and of building
+ * the edges of a large network. The vectorized kernel is only measured when {@code src-vector} is on the
+ * class path (see the README); otherwise both kernels are the scalar one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class KernelBenchmark {
+    private static final int NODES = 200_000;
+    private static final int CANDIDATES = 64;
+
+    @Param({"scalar", "fastest"})
+    public String kernelName;
+
+    private DistanceKernel kernel;
+    private double[] x;
+    private double[] y;
+    private int[] candidates;
+    private int[] hits;
+    private int[] costs;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rand = new SplittableRandom(42);
+        this.x = new double[NODES];
+        this.y = new double[NODES];
+        for (int i = 0; i < NODES; i++) {
+            this.x[i] = 2000 * rand.nextDouble();
+            this.y[i] = 2000 * rand.nextDouble();
+        }
+        this.candidates = new int[NODES * CANDIDATES / 8];
+        for (int i = 0; i < this.candidates.length; i++) {
+            this.candidates[i] = rand.nextInt(NODES);
+        }
+        this.hits = new int[this.candidates.length];
+        this.costs = new int[this.candidates.length];
+
+        this.kernel = "scalar".equals(this.kernelName) ? DistanceKernel.scalar() : DistanceKernel.get();
+        DistanceKernel scalar = DistanceKernel.scalar();
+        int[] scalarHits = new int[this.candidates.length];
+        int[] scalarCosts = new int[this.candidates.length];
+        for (int from = 0; from + CANDIDATES <= this.candidates.length; from += CANDIDATES) {
+            int[] block = Arrays.copyOfRange(this.candidates, from, from + CANDIDATES);
+            int found = this.kernel.withinRange(this.x, this.y, from % NODES, block, CANDIDATES, 1000, this.hits);
+            int scalarFound = scalar.withinRange(this.x, this.y, from % NODES, block, CANDIDATES, 1000, scalarHits);
+            if (found != scalarFound || !Arrays.equals(this.hits, 0, found, scalarHits, 0, scalarFound)) {
+                throw new IllegalStateException(String.format("The kernels disagree on the neighbors of node %d!", from % NODES));
+            }
+            this.kernel.transmissionCosts(this.x, this.y, from % NODES, this.candidates, from, from + CANDIDATES, 3200, this.costs);
+            scalar.transmissionCosts(this.x, this.y, from % NODES, this.candidates, from, from + CANDIDATES, 3200, scalarCosts);
+        }
+        if (!Arrays.equals(this.costs, scalarCosts)) {
+            throw new IllegalStateException("The kernels disagree on the transmission costs!");
+        }
+    }
+
+    @Benchmark
+    public int withinRange() {
+        int found = 0;
+        int[] block = new int[CANDIDATES];
+        for (int from = 0; from + CANDIDATES <= this.candidates.length; from += CANDIDATES) {
+            System.arraycopy(this.candidates, from, block, 0, CANDIDATES);
+            found += this.kernel.withinRange(this.x, this.y, from % NODES, block, CANDIDATES, 1000, this.hits);
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int[] transmissionCosts() {
+        for (int from = 0; from + CANDIDATES <= this.candidates.length; from += CANDIDATES) {
+            this.kernel.transmissionCosts(this.x, this.y, from % NODES, this.candidates, from, from + CANDIDATES, 3200, this.costs);
+        }
+        return this.costs;
+    }
+
+    /* Uses DistanceKernel.get() whatever the parameter; add -Dgrivera.kernel=scalar to the fork to compare */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public int buildEdges() {
+        NodeStore store = new NodeStore(30, NODES);
+        for (int i = 0; i < NODES; i++) {
+            store.addTransitionNode(this.x[i], this.y[i], 0);
+        }
+        store.buildEdges();
+        return store.getEdgeCount();
+    }
+}
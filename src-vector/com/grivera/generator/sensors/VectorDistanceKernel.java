@@ -0,0 +1,76 @@
+package com.grivera.generator.sensors;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A {@link DistanceKernel} that tests several candidates per instruction with the Vector API.
+ *
+ * <p>
+ * Needs {@code --add-modules jdk.incubator.vector} to compile and run, so it lives in its own source
+ * root and is only built on request; {@link DistanceKernel#get()} loads it by name when it is on the
+ * class path. Every lane does the same operations in the same order as {@link ScalarDistanceKernel},
+ * so the results are identical.
+ * </p>
+ */
+final class VectorDistanceKernel implements DistanceKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private final DistanceKernel scalar = new ScalarDistanceKernel();
+
+    @Override
+    public int withinRange(double[] x, double[] y, int from, int[] candidates, int count, double range, int[] hits) {
+        final double fromX = x[from];
+        final double fromY = y[from];
+        final int bound = SPECIES.loopBound(count);
+        int found = 0;
+        int i = 0;
+        long inRange;
+        DoubleVector dx, dy;
+        for (; i < bound; i += SPECIES.length()) {
+            dx = DoubleVector.broadcast(SPECIES, fromX).sub(DoubleVector.fromArray(SPECIES, x, 0, candidates, i));
+            dy = DoubleVector.broadcast(SPECIES, fromY).sub(DoubleVector.fromArray(SPECIES, y, 0, candidates, i));
+            inRange = dx.mul(dx).add(dy.mul(dy)).lanewise(VectorOperators.SQRT)
+                    .compare(VectorOperators.LE, range).toLong();
+            while (inRange != 0) {
+                hits[found++] = candidates[i + Long.numberOfTrailingZeros(inRange)];
+                inRange &= inRange - 1;
+            }
+        }
+
+        double tailX, tailY;
+        for (; i < count; i++) {
+            tailX = fromX - x[candidates[i]];
+            tailY = fromY - y[candidates[i]];
+            if (Math.sqrt(tailX * tailX + tailY * tailY) <= range) {
+                hits[found++] = candidates[i];
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void transmissionCosts(double[] x, double[] y, int from, int[] targets, int start, int end, int bitsPerPacket, int[] costs) {
+        final double fromX = x[from];
+        final double fromY = y[from];
+        final int bound = start + SPECIES.loopBound(end - start);
+        final double[] lanes = new double[SPECIES.length()];
+        int e = start;
+        DoubleVector dx, dy, distance;
+        for (; e < bound; e += SPECIES.length()) {
+            dx = DoubleVector.broadcast(SPECIES, fromX).sub(DoubleVector.fromArray(SPECIES, x, 0, targets, e));
+            dy = DoubleVector.broadcast(SPECIES, fromY).sub(DoubleVector.fromArray(SPECIES, y, 0, targets, e));
+            distance = dx.mul(dx).add(dy.mul(dy)).lanewise(VectorOperators.SQRT);
+            distance.mul(SensorNode.E_amp).mul(distance).add(SensorNode.E_elec)
+                    .mul(bitsPerPacket).mul(SensorNode.MICROJOULES_PER_JOULE).intoArray(lanes, 0);
+
+            /* Math.round is not a lane operation, and rounding the same doubles keeps the costs identical */
+            for (int lane = 0; lane < lanes.length; lane++) {
+                costs[e + lane] = (int) Math.round(lanes[lane]);
+            }
+        }
+        this.scalar.transmissionCosts(x, y, from, targets, e, end, bitsPerPacket, costs);
+    }
+}
@@ -1,35 +1,52 @@
+import com.grivera.generator.Network;
 import com.grivera.generator.SensorNetwork;
+import com.grivera.solver.CachedModel;
 import com.grivera.solver.ILPModel;
 import com.grivera.solver.ILPWeightedModel;
-import com.grivera.solver.Model;
 import com.grivera.solver.PriorityGreedyModel;
+import com.grivera.solver.ResultCache;
 
 public class CompareMaxFlow {
     public static void main(String[] args) {
         SensorNetwork network = SensorNetwork.from("compare_max_flow_9_21.sn");
-        Model model;
+
+        /* Finished cells are cached on disk, so re-running (or resuming) the sweep skips them */
+        ResultCache cache = new ResultCache("compare_max_flow.cache");
+        CachedModel model;
+        int cachedCells = 0;
+        int totalCells = 0;
         // System.out.println("Min detected is " + binarySearch(network, 2_500_000));
         // System.out.println("Min detected is " + binarySearch(network, Integer.MAX_VALUE));
 
         System.out.println();
         System.out.printf("%-16s | %19s | %23s | %-26s | %26s\n", "Model Type", "initial energy (\u00b5J)", "total packets offloaded", "total value collected (\u00b5J)", "total preservation cost (\u00b5J)");
         System.out.println("-----------------------------------------------------------------------------------------------------------------------------");
+        Network cell;
         for (int initialEnergy = 500_000; initialEnergy <= 2_500_000; initialEnergy += 500_000) {
-            network.setBatteryCapacity(initialEnergy);
+            /* Each energy level gets its own fork, leaving the loaded network untouched */
+            cell = network.fork();
+            cell.setBatteryCapacity(initialEnergy);
 
-            model = new PriorityGreedyModel(network);
+            model = new CachedModel(new PriorityGreedyModel(cell), cache);
             model.run();
+            cachedCells += model.isFromCache() ? 1 : 0;
+            totalCells++;
             System.out.printf("%-16s   %,19d   %,23d   %,26d   %,26d\n", "Priority Greedy", initialEnergy, model.getTotalPackets(), model.getTotalValue(), model.getTotalCost());
 
-            model = new ILPModel(network);
+            model = new CachedModel(new ILPModel(cell), cache);
             model.run();
+            cachedCells += model.isFromCache() ? 1 : 0;
+            totalCells++;
             System.out.printf("%-16s   %,19d   %,23d   %,26d   %,26d\n", "ILP", initialEnergy, model.getTotalPackets(), model.getTotalValue(), model.getTotalCost());
             
-            model = new ILPWeightedModel(network);
+            model = new CachedModel(new ILPWeightedModel(cell), cache);
             model.run();
+            cachedCells += model.isFromCache() ? 1 : 0;
+            totalCells++;
             System.out.printf("%-16s   %,19d   %,23d   %,26d   %,26d\n", "ILP (Weighted)", initialEnergy, model.getTotalPackets(), model.getTotalValue(), model.getTotalCost());
             System.out.println();
         }
+        System.out.printf("%d/%d results were loaded from \"compare_max_flow.cache\"\n", cachedCells, totalCells);
         System.out.println();
     }
 
@@ -1,12 +1,18 @@
 import com.grivera.solver.PMPCs2Model;
+import com.grivera.solver.PMPMinCostFlowModel;
 import com.grivera.solver.ILPModel;
 import com.grivera.solver.ILPWeightedModel;
+import com.grivera.generator.ConnectedNetworkSearch;
 import com.grivera.generator.Network;
 import com.grivera.generator.SensorNetwork;
 import com.grivera.solver.Model;
+import com.grivera.solver.ModelComparison;
+import com.grivera.solver.MultipathGreedyModel;
 import com.grivera.solver.PriorityGreedyModel;
+import com.grivera.solver.ThroughputGreedyModel;
 
 import java.util.Scanner;
+import java.util.SplittableRandom;
 
 public class RunModelTests {
 
@@ -68,62 +74,42 @@ public class RunModelTests {
         System.out.println("Running models...");
         System.out.println("=================");
 
-        Model model = new PriorityGreedyModel(network);
-        model.run();
-        System.out.println("Priority Greedy:");
-        System.out.printf("Value: %d \u00b5J\n", model.getTotalValue());
-        System.out.printf("Cost: %d \u00b5J\n", model.getTotalCost());
-        System.out.printf("Profit: %d \u00b5J\n", model.getTotalProfit());
-        System.out.printf("Packets preserved: %d\n", model.getTotalPackets());
-        if (showRoute) {
-            System.out.println("Route:");
-            model.printRoute();
-        }
-        System.out.println();
+        String cs2Executable = cs2Location;
+        ModelComparison.Report report = new ModelComparison(network)
+                .add("Priority Greedy", PriorityGreedyModel::new)
+                .add("Throughput Greedy", ThroughputGreedyModel::new)
+                .add("Multipath Greedy", MultipathGreedyModel::new)
+                .add("CS2 (Optimal)", n -> new PMPCs2Model(n, cs2Executable))
+                .add("Min-Cost Flow (In-Process)", PMPMinCostFlowModel::new)
+                .add("ILP", ILPModel::new)
+                .add("ILP (Weighted)", ILPWeightedModel::new)
+                .run();
+
+        Model model;
+        for (ModelComparison.Entry entry : report.entries()) {
+            if (!entry.succeeded()) {
+                System.out.printf("WARNING: %s\n", entry.error().getMessage());
+                System.out.printf("Skipping %s...\n", entry.name());
+                System.out.println();
+                continue;
+            }
 
-        try {
-            System.out.println("CS2 (Optimal):");
-            model = new PMPCs2Model(network, cs2Location);
-            model.run();
+            model = entry.model();
+            System.out.printf("%s:\n", entry.name());
             System.out.printf("Value: %d \u00b5J\n", model.getTotalValue());
             System.out.printf("Cost: %d \u00b5J\n", model.getTotalCost());
             System.out.printf("Profit: %d \u00b5J\n", model.getTotalProfit());
             System.out.printf("Packets preserved: %d\n", model.getTotalPackets());
+            System.out.printf("Time: %.1f ms\n", entry.elapsedMillis());
             if (showRoute) {
                 System.out.println("Route:");
                 model.printRoute();
             }
-        } catch (IllegalArgumentException e) {
-            System.out.printf("WARNING: %s\n", e.getMessage());
-            System.out.println("Skipping Cs2Model...");
-        } finally {
             System.out.println();
         }
 
-        model = new ILPModel(network);
-        model.run();
-        System.out.println("ILP:");
-        System.out.printf("Value: %d \u00b5J\n", model.getTotalValue());
-        System.out.printf("Cost: %d \u00b5J\n", model.getTotalCost());
-        System.out.printf("Profit: %d \u00b5J\n", model.getTotalProfit());
-        System.out.printf("Packets preserved: %d\n", model.getTotalPackets());
-        if (showRoute) {
-            System.out.println("Route:");
-            model.printRoute();
-        }
-        System.out.println();
-
-        model = new ILPWeightedModel(network);
-        model.run();
-        System.out.println("ILP (Weighted):");
-        System.out.printf("Value: %d \u00b5J\n", model.getTotalValue());
-        System.out.printf("Cost: %d \u00b5J\n", model.getTotalCost());
-        System.out.printf("Profit: %d \u00b5J\n", model.getTotalProfit());
-        System.out.printf("Packets preserved: %d\n", model.getTotalPackets());
-        if (showRoute) {
-            System.out.println("Route:");
-            model.printRoute();
-        }
+        System.out.println("Summary:");
+        report.printSummary(System.out);
         System.out.println();
     }
 
@@ -189,9 +175,19 @@ public class RunModelTests {
         int highestValue = keyboard.nextInt();
         keyboard.nextLine();
 
-        return SensorNetwork.of(
+        try (ConnectedNetworkSearch search = new ConnectedNetworkSearch(
                 width, height, nodeCount, transmissionRange, gNodeCount, packetsCount, sNodeCount, storageCount,
-                batteryCapacity, lowestValue, highestValue
-        );
+                batteryCapacity, lowestValue, highestValue,
+                new SplittableRandom().nextLong(), 1, 1, true
+        )) {
+            Network network = search.get();
+            System.out.printf("Found a connected network after %d attempts.\n", search.getAttempts());
+            return network;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.out.println(e.getMessage() + " Please re-run the program.");
+            System.out.println("Exiting the program...");
+            System.exit(0);
+            return null;
+        }
     }
 }
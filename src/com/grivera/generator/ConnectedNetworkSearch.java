@@ -0,0 +1,203 @@
+package com.grivera.generator;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates random Sensor Networks in parallel until one of them is connected.
+ *
+ * <p>
+ * Attempt {@code i} always draws its nodes from the {@code i}-th seed of a {@link SplittableRandom}
+ * seeded with the given seed, and the connected network with the lowest attempt number wins.
+ * The outcome of a search therefore only depends on its seed, not on the number of threads.
+ * </p>
+ */
+public class ConnectedNetworkSearch implements AutoCloseable {
+
+    private final double width, length, transmissionRange;
+    private final int nodeCount, dataNodeCount, dataPacketCount, storageNodeCount, storageCapacity, batteryCapacity;
+    private final int lowestValue, highestValue;
+    private final int maxAttempts;
+    private final boolean repair;
+
+    private final SplittableRandom seeds;
+    private int nextAttempt;
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicInteger bestAttempt = new AtomicInteger(Integer.MAX_VALUE);
+    private SensorNetwork best;
+    private volatile boolean cancelled;
+
+    private final ExecutorService executor;
+    private final CompletableFuture<SensorNetwork> result = new CompletableFuture<>();
+    private int runningWorkers;
+
+    /**
+     * Starts searching for a connected network with the given parameters
+     * (see {@link SensorNetwork#SensorNetwork(double, double, int, double, int, int, int, int, int, int, int)}).
+     *
+     * @param seed        the seed of the search
+     * @param maxAttempts the number of networks to generate before giving up
+     * @param threads     the number of networks to generate at the same time
+     */
+    public ConnectedNetworkSearch(double x, double y, int N, double tr, int p, int q, int s, int m, int c, int Vl, int Vh,
+                                  long seed, int maxAttempts, int threads) {
+        this(x, y, N, tr, p, q, s, m, c, Vl, Vh, seed, maxAttempts, threads, false);
+    }
+
+    /**
+     * @param repair whether to move the nodes outside the largest component next to it instead of
+     *               rejecting disconnected networks (the first attempt then always succeeds, so more
+     *               attempts or threads only generate networks that are thrown away)
+     */
+    public ConnectedNetworkSearch(double x, double y, int N, double tr, int p, int q, int s, int m, int c, int Vl, int Vh,
+                                  long seed, int maxAttempts, int threads, boolean repair) {
+        if (p + s > N) {
+            throw new IllegalArgumentException("Invalid SensorNetwork constructor parameters");
+        }
+        if (p * q > (N - p) * m) {
+            throw new IllegalArgumentException("Invalid network parameters! There is not enough storage for every data packet.");
+        }
+        if (maxAttempts < 1 || threads < 1) {
+            throw new IllegalArgumentException("A network search needs at least one attempt and one thread!");
+        }
+
+        this.width = x;
+        this.length = y;
+        this.nodeCount = N;
+        this.transmissionRange = tr;
+        this.dataNodeCount = p;
+        this.dataPacketCount = q;
+        this.storageNodeCount = s;
+        this.storageCapacity = m;
+        this.batteryCapacity = c;
+        this.lowestValue = Vl;
+        this.highestValue = Vh;
+        this.maxAttempts = maxAttempts;
+        this.repair = repair;
+        this.seeds = new SplittableRandom(seed);
+
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "network-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.runningWorkers = threads;
+        for (int i = 0; i < threads; i++) {
+            this.executor.execute(this::work);
+        }
+        this.executor.shutdown();
+    }
+
+    private void work() {
+        long[] claim = new long[2];
+        SensorNetwork network;
+        try {
+            while (!this.cancelled && this.claim(claim)) {
+                network = new SensorNetwork(this.width, this.length, this.nodeCount, this.transmissionRange,
+                        this.dataNodeCount, this.dataPacketCount, this.storageNodeCount, this.storageCapacity,
+                        this.batteryCapacity, this.lowestValue, this.highestValue, new SplittableRandom(claim[1]), this.repair);
+                this.attempts.incrementAndGet();
+                if (network.isConnected()) {
+                    this.offer((int) claim[0], network);
+                }
+            }
+        } catch (RuntimeException e) {
+            this.result.completeExceptionally(e);
+        } finally {
+            this.finishWorker();
+        }
+    }
+
+    /* Hands out attempts (and their seeds) in order, until one below the current best is left */
+    private synchronized boolean claim(long[] claim) {
+        if (this.nextAttempt >= this.maxAttempts || this.nextAttempt > this.bestAttempt.get()) {
+            return false;
+        }
+        claim[0] = this.nextAttempt++;
+        claim[1] = this.seeds.nextLong();
+        return true;
+    }
+
+    private synchronized void offer(int attempt, SensorNetwork network) {
+        if (attempt < this.bestAttempt.get()) {
+            this.bestAttempt.set(attempt);
+            this.best = network;
+        }
+    }
+
+    private synchronized void finishWorker() {
+        if (--this.runningWorkers > 0) {
+            return;
+        }
+        if (this.cancelled) {
+            this.result.cancel(false);
+        } else if (this.best != null) {
+            this.result.complete(this.best);
+        } else {
+            this.result.completeExceptionally(new IllegalStateException(
+                    String.format("Failed to create a connected network after %d tries!", this.attempts.get())));
+        }
+    }
+
+    /**
+     * Waits for the search to finish.
+     *
+     * @return the connected network with the lowest attempt number
+     * @throws IllegalStateException if no connected network was found within the maximum attempts
+     * @throws CancellationException if the search was cancelled
+     */
+    public SensorNetwork get() {
+        try {
+            return this.result.get();
+        } catch (InterruptedException e) {
+            this.cancel();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while searching for a connected network");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the search as a future, e.g. to wait for it with a timeout.
+     *
+     * @return a future of the connected network
+     */
+    public CompletableFuture<SensorNetwork> getFuture() {
+        return this.result;
+    }
+
+    /**
+     * Stops generating networks. Attempts that are in progress finish (and are discarded).
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Returns the number of networks generated so far.
+     *
+     * @return the number of attempts
+     */
+    public int getAttempts() {
+        return this.attempts.get();
+    }
+
+    @Override
+    public void close() {
+        this.cancel();
+    }
+}
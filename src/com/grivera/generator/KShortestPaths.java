@@ -0,0 +1,285 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.NodeStore;
+import com.grivera.generator.sensors.SensorNode;
+import com.grivera.util.LongHeap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the k cheapest loopless paths between two nodes with Yen's algorithm, over the edge costs of a
+ * {@link NodeStore} (ignoring energy), and caches them per pair since the topology never changes.
+ * Asking for more paths of a pair resumes from the paths and candidates cached for it.
+ *
+ * <p>
+ * Every next path branches off one of the paths found so far: for each node of the last path, it keeps
+ * the path up to that node and searches for the rest without the edges the earlier paths took from there
+ * (and without the nodes before it, so that paths stay loopless).
+ * </p>
+ * <p>
+ * The cache can be shared by every network (and thread) over the same store, with one instance per thread
+ * for the scratch space of the searches (see {@link #share()}).
+ * </p>
+ */
+final class KShortestPaths {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final NodeStore store;
+    private final int bitsPerPacket;
+    private final int receivingCost;
+    private final Map<Long, Found> cache;
+    private long settledNodes;
+
+    /*
+     * Scratch space of the searches (allocated by the first one); nodes and edges are blocked when their
+     * mark is the current epoch
+     */
+    private int[] dist;
+    private int[] prev;
+    private int[] touched;
+    private int touchedCount;
+    private int[] blockedNode;
+    private int[] blockedEdge;
+    private int epoch;
+    private final LongHeap heap = new LongHeap();
+
+    KShortestPaths(NodeStore store) {
+        this(store, SensorNode.getBitsPerPacket(), new ConcurrentHashMap<>());
+    }
+
+    private KShortestPaths(NodeStore store, int bitsPerPacket, Map<Long, Found> cache) {
+        this.store = store;
+        this.bitsPerPacket = bitsPerPacket;
+        this.receivingCost = store.getReceivingCost();
+        this.cache = cache;
+    }
+
+    /**
+     * Creates an instance that shares the cached paths of this one, with its own scratch space (e.g. for a fork).
+     *
+     * @return a new instance over the same cache
+     */
+    KShortestPaths share() {
+        return new KShortestPaths(this.store, this.bitsPerPacket, this.cache);
+    }
+
+    /**
+     * Tests whether the cached paths still match the edge costs of the store (the cost of a packet can change).
+     *
+     * @return true if and only if the cache is up-to-date; otherwise false
+     */
+    boolean isCurrent() {
+        return this.bitsPerPacket == SensorNode.getBitsPerPacket();
+    }
+
+    /*
+     * The paths found for a pair so far, with the candidates for the next ones; the paths are only ever
+     * appended to, while holding the lock of the pair
+     */
+    private static final class Found {
+        private final List<int[]> paths = new ArrayList<>();
+        private final PriorityQueue<Candidate> candidates;
+        private final Set<PathKey> seen = new HashSet<>();
+        private boolean started;
+        private boolean exhausted;
+
+        Found(NodeStore store) {
+            /* Ties between candidates of the same cost are broken by their uuids, node by node */
+            this.candidates = new PriorityQueue<>((c1, c2) -> {
+                if (c1.cost() != c2.cost()) {
+                    return Integer.compare(c1.cost(), c2.cost());
+                }
+                return Arrays.compare(uuidsOf(store, c1.path()), uuidsOf(store, c2.path()));
+            });
+        }
+    }
+
+    private record Candidate(int cost, int[] path) {
+    }
+
+    /* Paths as keys of a set (arrays only compare by reference) */
+    private record PathKey(int[] path) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PathKey other && Arrays.equals(this.path, other.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.path);
+        }
+    }
+
+    /**
+     * Returns up to k cheapest loopless paths between two nodes, by increasing cost.
+     *
+     * @param from the index of the first node
+     * @param to   the index of the last node
+     * @param k    the most paths to find
+     * @return the indices of the nodes of every path
+     */
+    List<int[]> find(int from, int to, int k) {
+        long key = (long) from * this.store.size() + to;
+        Found found = this.cache.computeIfAbsent(key, ignored -> new Found(this.store));
+        synchronized (found) {
+            if (found.paths.size() < k && !found.exhausted) {
+                this.search(found, from, to, k);
+            }
+            return List.copyOf(found.paths.subList(0, Math.min(k, found.paths.size())));
+        }
+    }
+
+    /**
+     * Returns the nodes settled by the searches since the last call.
+     *
+     * @return the number of settled nodes
+     */
+    long takeSettledNodeCount() {
+        long settled = this.settledNodes;
+        this.settledNodes = 0;
+        return settled;
+    }
+
+    /* Finds paths until there are k, going on from the paths and candidates found before */
+    private void search(Found found, int from, int to, int k) {
+        if (this.dist == null) {
+            this.dist = new int[this.store.size()];
+            this.prev = new int[this.store.size()];
+            this.touched = new int[this.store.size()];
+            this.blockedNode = new int[this.store.size()];
+            this.blockedEdge = new int[2 * this.store.getEdgeCount()];
+            Arrays.fill(this.dist, INFINITY);
+        }
+
+        final List<int[]> paths = found.paths;
+        if (!found.started) {
+            found.started = true;
+            this.epoch++;
+            int[] first = this.shortestPath(from, to);
+            this.clear();
+            if (first == null) {
+                found.exhausted = true;
+                return;
+            }
+            paths.add(first);
+            found.seen.add(new PathKey(first));
+        }
+
+        int[] last, spurPath, path;
+        int spur, rootCost;
+        while (paths.size() < k) {
+            last = paths.getLast();
+            rootCost = 0;
+            for (int j = 0; j < last.length - 1; j++) {
+                spur = last[j];
+                this.epoch++;
+
+                /* Block the edges that the paths sharing this root take next, and the root before the spur */
+                for (int[] p : paths) {
+                    if (p.length > j + 1 && Arrays.equals(p, 0, j + 1, last, 0, j + 1)) {
+                        this.blockedEdge[this.store.findEdge(p[j], p[j + 1])] = this.epoch;
+                    }
+                }
+                for (int r = 0; r < j; r++) {
+                    this.blockedNode[last[r]] = this.epoch;
+                }
+
+                spurPath = this.shortestPath(spur, to);
+                if (spurPath != null) {
+                    path = new int[j + spurPath.length];
+                    System.arraycopy(last, 0, path, 0, j);
+                    System.arraycopy(spurPath, 0, path, j, spurPath.length);
+                    if (found.seen.add(new PathKey(path))) {
+                        found.candidates.add(new Candidate(rootCost + this.dist[to], path));
+                    }
+                }
+                this.clear();
+                rootCost += this.costOf(last[j], last[j + 1]);
+            }
+
+            if (found.candidates.isEmpty()) {
+                found.exhausted = true;
+                return;
+            }
+            paths.add(found.candidates.poll().path());
+        }
+    }
+
+    private static int[] uuidsOf(NodeStore store, int[] path) {
+        int[] uuids = new int[path.length];
+        for (int i = 0; i < path.length; i++) {
+            uuids[i] = store.getUuid(path[i]);
+        }
+        return uuids;
+    }
+
+    private int costOf(int from, int to) {
+        return this.store.getTransmissionCost(this.store.findEdge(from, to)) + this.receivingCost;
+    }
+
+    /* Dijkstra's algorithm around the blocked nodes and edges; leaves dist set until clear() */
+    private int[] shortestPath(int from, int to) {
+        final NodeStore store = this.store;
+        this.heap.clear();
+        this.dist[from] = 0;
+        this.prev[from] = -1;
+        this.touched[this.touchedCount++] = from;
+        this.heap.push(LongHeap.pack(0, store.getUuid(from)));
+
+        long top;
+        int curr, next, nextCost;
+        while (!this.heap.isEmpty()) {
+            top = this.heap.pop();
+            curr = store.getIndexOfUuid(LongHeap.node(top));
+            if (LongHeap.cost(top) > this.dist[curr]) {
+                continue;
+            }
+            this.settledNodes++;
+            if (curr == to) {
+                break;
+            }
+            for (int e = store.getEdgeStart(curr); e < store.getEdgeEnd(curr); e++) {
+                next = store.getEdgeTarget(e);
+                if (this.blockedEdge[e] == this.epoch || this.blockedNode[next] == this.epoch) {
+                    continue;
+                }
+                nextCost = this.dist[curr] + store.getTransmissionCost(e) + this.receivingCost;
+                if (nextCost < this.dist[next]) {
+                    if (this.dist[next] == INFINITY) {
+                        this.touched[this.touchedCount++] = next;
+                    }
+                    this.dist[next] = nextCost;
+                    this.prev[next] = curr;
+                    this.heap.push(LongHeap.pack(nextCost, store.getUuid(next)));
+                }
+            }
+        }
+
+        if (this.dist[to] == INFINITY) {
+            return null;
+        }
+        int length = 0;
+        for (int node = to; node != -1; node = this.prev[node]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int node = to, i = length - 1; node != -1; node = this.prev[node], i--) {
+            path[i] = node;
+        }
+        return path;
+    }
+
+    private void clear() {
+        while (this.touchedCount > 0) {
+            this.dist[this.touched[--this.touchedCount]] = INFINITY;
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.grivera.generator;
 
 import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.NetworkState;
+import com.grivera.generator.sensors.NodeStore;
 import com.grivera.generator.sensors.SensorNode;
 import com.grivera.generator.sensors.StorageNode;
 import com.grivera.generator.sensors.TransitionNode;
 
+import java.io.PrintWriter;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -15,6 +18,10 @@ import java.util.Set;
 public interface Network {
     double getWidth();
     double getLength();
+    double getTransmissionRange();
+    int getDataPacketCount();
+    int getStorageCapacity();
+    int getBatteryCapacity();
     List<SensorNode> getSensorNodes();
     int getSensorNodeCount();
     List<DataNode> getDataNodes();
@@ -45,6 +52,31 @@ public interface Network {
     boolean isFeasible();
     boolean isMaxFeasible();
     Map<SensorNode, Set<SensorNode>> getAdjacencyList();    // Returns the connection of nodes (using ID)
+
+    /**
+     * Returns the columnar store that holds the state and adjacency of every node,
+     * for loops that would rather read arrays than walk Sensor Node objects.
+     *
+     * @return the node store of this network
+     */
+    NodeStore getNodeStore();
+
+    /**
+     * Returns the energy and packets of every node, which can be captured before a
+     * tentative change and restored afterwards in time proportional to the nodes it touched.
+     *
+     * @return the state of the network
+     */
+    NetworkState getState();
+
+    /**
+     * Creates a network that shares the (immutable) topology of this network, but has its own
+     * energy, packets and parameters, so that models can run on both at the same time.
+     * Forking is cheap: the state of this network is only copied once either network changes it.
+     *
+     * @return a fork of this network
+     */
+    Network fork();
     int calculateMinCost(SensorNode from, SensorNode to);
 
     /**
@@ -58,6 +90,67 @@ public interface Network {
      */
     List<SensorNode> getMinCostPath(SensorNode from, SensorNode to);
 
+    /**
+     * Returns the sensor nodes in the min-cost path between the from and to sensor
+     * nodes that can carry a number of packets: every node on it can afford to
+     * transmit and receive all of them, and the to sensor node can store them
+     *
+     * @param from    the starting sensor node
+     * @param to      the ending sensor node
+     * @param packets the number of packets to carry
+     * @return a list of the sensor nodes in the path; otherwise a list of only the
+     *         to sensor node if no path can carry the packets
+     */
+    List<SensorNode> getMinCostPath(SensorNode from, SensorNode to, int packets);
+
+    /**
+     * Returns the sensor nodes in the widest path between the from and to sensor
+     * nodes: the path that can carry the most packets with the energy the nodes
+     * have left, whatever its cost
+     *
+     * @param from the starting sensor node
+     * @param to   the ending sensor node
+     * @return a list of the sensor nodes in the widest path; otherwise a list of
+     *         only the to sensor node if no path can carry a packet
+     */
+    List<SensorNode> getWidestPath(SensorNode from, SensorNode to);
+
+    /**
+     * Returns the min-cost paths from a Data Node to the nearest Storage Nodes with
+     * space left, by increasing cost, stopping as soon as they have enough space
+     * for the packets the Data Node has left
+     *
+     * @param dn the Data Node to send from
+     * @return a list of the min-cost paths, each ending at a Storage Node; fewer
+     *         Storage Nodes if not enough can be reached
+     */
+    List<List<SensorNode>> getNearestStoragePaths(DataNode dn);
+
+    /**
+     * Returns the min-cost paths from a Data Node to the nearest Storage Nodes with
+     * space left, by increasing cost, stopping as soon as they have enough space
+     * for some number of packets
+     *
+     * @param dn      the Data Node to send from
+     * @param packets the number of packets to find space for
+     * @return a list of the min-cost paths, each ending at a Storage Node; fewer
+     *         Storage Nodes if not enough can be reached
+     */
+    List<List<SensorNode>> getNearestStoragePaths(DataNode dn, int packets);
+
+    /**
+     * Returns up to k cheapest loopless paths between the from and to sensor nodes,
+     * by increasing cost. The paths only depend on the topology (not on the energy
+     * left), so they are computed once per pair; check how many packets each can
+     * still carry with {@link #calculateMaxPacketsAlong(List)}
+     *
+     * @param from the starting sensor node
+     * @param to   the ending sensor node
+     * @param k    the most paths to return
+     * @return a list of the paths; fewer than k if there are no more
+     */
+    List<List<SensorNode>> getKShortestPaths(SensorNode from, SensorNode to, int k);
+
     /**
      * Calculates the cost of a given path.
      *
@@ -83,15 +176,71 @@ public interface Network {
      * @param fileName the path to the file to save to
      */
     void saveAsCsInp(String fileName);
+
+    /**
+     * Writes the network in the <b>DIMAC</b> format to the given writer,
+     * allowing the flow network to be streamed without a temporary file.
+     *
+     * @param writer the writer to write the flow network to
+     */
+    void writeCsInp(PrintWriter writer);
     void setOverflowPackets(int overflowPackets);
     void setStorageCapacity(int storageCapacity);
     void setBatteryCapacity(int batteryCapacity);
     boolean canSendPackets(DataNode dn, StorageNode sn, int packets);
     boolean canSendPacketsAlong(List<SensorNode> path, int packets);
+    boolean canSendPacketsAlong(Path path, int packets);
+
+    /**
+     * Tests whether packets can be sent along many paths at once, with the energy
+     * their nodes have left (counting what every path spends on shared nodes).
+     *
+     * @param paths   the paths to send along, each from a Data Node to a Storage Node
+     * @param packets the number of packets to send along each path
+     * @return true if and only if every path can be sent along; otherwise false
+     */
+    boolean canSendPacketsAlong(List<Path> paths, int[] packets);
+
+    /**
+     * Converts a path of sensor nodes into a {@link Path}, which caches the energy every
+     * node spends per packet so that it can be sent along many times.
+     *
+     * @param path the path between two sensor nodes
+     * @return the compact path
+     */
+    Path toPath(List<SensorNode> path);
+    List<SensorNode> toList(Path path);
+
+    /**
+     * Calculates the most packets that can be sent along a path, with the energy
+     * its nodes have left and the space its last node has left.
+     *
+     * @param path the path between two sensor nodes
+     * @return the number of packets the path can carry
+     */
+    int calculateMaxPacketsAlong(List<SensorNode> path);
+
     void sendPackets(DataNode dn, StorageNode sn, int packets);
     void sendPacketsAlong(List<SensorNode> path, int packets);
+    void sendPacketsAlong(Path path, int packets);
+
+    /**
+     * Sends packets along many paths at once, all or nothing: if any path cannot be
+     * sent along, the network is left as it was.
+     *
+     * @param paths   the paths to send along, each from a Data Node to a Storage Node
+     * @param packets the number of packets to send along each path
+     * @throws IllegalArgumentException if the paths cannot all be sent along
+     */
+    void sendPacketsAlong(List<Path> paths, int[] packets);
     void resetPackets();
     void resetEnergy();
+
+    /**
+     * Resets the packets and energy of every node, only visiting the nodes that
+     * changed since the last reset.
+     */
+    void resetState();
     int calculateProfitOf(DataNode from, StorageNode to);
     SensorNode getSensorNodeByUuid(int uuid);
     DataNode getDataNodeById(int id);
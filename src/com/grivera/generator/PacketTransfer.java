@@ -0,0 +1,163 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.NetworkState;
+import com.grivera.generator.sensors.NodeStore;
+import com.grivera.generator.sensors.SensorNode;
+
+import java.util.List;
+
+/**
+ * Sends packets along many routes of a {@link NetworkState} at once, all or nothing.
+ *
+ * <p>
+ * The routes are first added up per node (the energy every node spends, the packets every Data Node sends
+ * and the packets every Storage Node stores), then checked against the state, and only then written, once
+ * per node. A route that shares nodes with another is checked against what both spend, and nothing is
+ * written unless every route fits.
+ * </p>
+ */
+final class PacketTransfer {
+
+    private final NetworkState state;
+    private final NodeStore store;
+
+    /* What the routes spend, per node touched since the last clear (when its mark is the current epoch) */
+    private final long[] spent;
+    private final int[] sent;
+    private final int[] stored;
+    private final int[] mark;
+    private int epoch = 1;
+    private final int[] touched;
+    private int touchedCount;
+    private boolean feasible = true;
+
+    PacketTransfer(NetworkState state) {
+        this.state = state;
+        this.store = state.getNodeStore();
+        final int n = this.store.size();
+        this.spent = new long[n];
+        this.sent = new int[n];
+        this.stored = new int[n];
+        this.mark = new int[n];
+        this.touched = new int[n];
+    }
+
+    /**
+     * Forgets the routes added so far.
+     */
+    void clear() {
+        this.epoch++;
+        this.touchedCount = 0;
+        this.feasible = true;
+    }
+
+    /**
+     * Adds packets sent along a path, from a Data Node to a Storage Node.
+     *
+     * @param path    the path to send along
+     * @param packets the number of packets to send
+     */
+    void add(Path path, int packets) {
+        if (!this.isRoute(path.size(), path.getFirst(), path.getLast(), packets)) {
+            return;
+        }
+        int node;
+        for (int i = 0; i < path.size(); i++) {
+            node = path.getNode(i);
+            this.touch(node);
+            this.spent[node] += (long) path.getCharge(i) * packets;
+        }
+        this.sent[path.getFirst()] += packets;
+        this.stored[path.getLast()] += packets;
+    }
+
+    /**
+     * Adds packets sent along a path of Sensor Nodes, from a Data Node to a Storage Node.
+     *
+     * @param path    the path to send along
+     * @param packets the number of packets to send
+     */
+    void add(List<SensorNode> path, int packets) {
+        if (path.isEmpty() || !this.isRoute(path.size(), path.getFirst().getIndex(), path.getLast().getIndex(), packets)) {
+            return;
+        }
+        final int receivingCost = this.store.getReceivingCost();
+        int from, to;
+        for (int i = 0; i < path.size() - 1; i++) {
+            from = path.get(i).getIndex();
+            to = path.get(i + 1).getIndex();
+            this.touch(from);
+            this.touch(to);
+            this.spent[from] += (long) this.store.transmissionCost(from, to) * packets;
+            this.spent[to] += (long) receivingCost * packets;
+        }
+        this.sent[path.getFirst().getIndex()] += packets;
+        this.stored[path.getLast().getIndex()] += packets;
+    }
+
+    private boolean isRoute(int size, int first, int last, int packets) {
+        if (size < 2 || packets < 0 || this.store.getType(first) != NodeStore.DATA
+                || this.store.getType(last) != NodeStore.STORAGE) {
+            this.feasible = false;
+        }
+        return this.feasible;
+    }
+
+    private void touch(int node) {
+        if (this.mark[node] != this.epoch) {
+            this.mark[node] = this.epoch;
+            this.spent[node] = 0;
+            this.sent[node] = 0;
+            this.stored[node] = 0;
+            this.touched[this.touchedCount++] = node;
+        }
+    }
+
+    /**
+     * Tests whether every route added since the last clear fits in the energy, packets and space left.
+     *
+     * @return true if and only if the routes can all be sent; otherwise false
+     */
+    boolean isFeasible() {
+        if (!this.feasible) {
+            return false;
+        }
+        final NetworkState state = this.state;
+        int node;
+        for (int i = 0; i < this.touchedCount; i++) {
+            node = this.touched[i];
+            if (this.spent[node] > state.getEnergy(node)
+                    || this.sent[node] > state.getPacketsLeft(node)
+                    || this.stored[node] > state.getCapacity(node) - state.getUsedSpace(node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the routes added since the last clear to the state, once per node.
+     *
+     * @throws IllegalStateException if the routes do not all fit
+     */
+    void apply() {
+        if (!this.isFeasible()) {
+            throw new IllegalStateException("The routes do not fit in the network!");
+        }
+        final NetworkState state = this.state;
+        int node;
+        for (int i = 0; i < this.touchedCount; i++) {
+            node = this.touched[i];
+            if (this.spent[node] > 0) {
+                state.setEnergy(node, state.getEnergy(node) - (int) this.spent[node]);
+            }
+            if (this.sent[node] > 0) {
+                state.setPacketsLeft(node, state.getPacketsLeft(node) - this.sent[node]);
+            }
+            if (this.stored[node] > 0) {
+                state.setUsedSpace(node, state.getUsedSpace(node) + this.stored[node]);
+            }
+        }
+        this.clear();
+    }
+}
@@ -0,0 +1,125 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.NetworkState;
+import com.grivera.generator.sensors.NodeStore;
+
+import java.util.Arrays;
+
+/**
+ * A path between two nodes of a network, kept as the indices of its nodes with the energy every node
+ * spends per packet sent along it (the first node transmits, the last receives, and the others do both).
+ * The charges only depend on the positions of the nodes, so a path can be sent along many times without
+ * computing them again.
+ */
+public final class Path {
+
+    private final int[] nodes;
+    private final int[] charges;
+    private final int cost;
+    private final int maxCharge;
+
+    Path(NodeStore store, int[] nodes) {
+        this.nodes = nodes;
+        this.charges = new int[nodes.length];
+        final int receivingCost = store.getReceivingCost();
+        int cost = 0;
+        int maxCharge = 0;
+        int tx;
+        for (int i = 0; i < nodes.length; i++) {
+            if (i > 0) {
+                this.charges[i] += receivingCost;
+            }
+            if (i < nodes.length - 1) {
+                tx = store.transmissionCost(nodes[i], nodes[i + 1]);
+                this.charges[i] += tx;
+                cost += tx + receivingCost;
+            }
+            maxCharge = Math.max(maxCharge, this.charges[i]);
+        }
+        this.cost = cost;
+        this.maxCharge = maxCharge;
+    }
+
+    public int size() {
+        return this.nodes.length;
+    }
+
+    /**
+     * Returns the index of the node at some position of the path.
+     *
+     * @param position the position along the path
+     * @return the index of the node
+     */
+    public int getNode(int position) {
+        return this.nodes[position];
+    }
+
+    public int getFirst() {
+        return this.nodes[0];
+    }
+
+    public int getLast() {
+        return this.nodes[this.nodes.length - 1];
+    }
+
+    /**
+     * Returns the energy the node at some position spends per packet sent along the path.
+     *
+     * @param position the position along the path
+     * @return the energy spent per packet (in micro Joules)
+     */
+    public int getCharge(int position) {
+        return this.charges[position];
+    }
+
+    /**
+     * Returns the cost of sending one packet along the path (the sum of the charges).
+     *
+     * @return the cost of the path
+     */
+    public int getCost() {
+        return this.cost;
+    }
+
+    /**
+     * Returns the largest charge of a node of the path, which bounds how many packets any full battery can send.
+     *
+     * @return the largest energy spent per packet by one node
+     */
+    public int getMaxCharge() {
+        return this.maxCharge;
+    }
+
+    /**
+     * Calculates the most packets that can be sent along the path, with the energy its nodes have left and
+     * the space its last node has left (the bottleneck of the path).
+     *
+     * @param state the state to read the energy and space from
+     * @return the number of packets the path can carry
+     */
+    public int getMaxPackets(NetworkState state) {
+        if (this.nodes.length < 2 || state.getNodeStore().getType(this.getLast()) != NodeStore.STORAGE) {
+            return 0;
+        }
+        int maxPackets = state.getCapacity(this.getLast()) - state.getUsedSpace(this.getLast());
+        for (int i = 0; i < this.nodes.length; i++) {
+            maxPackets = Math.min(maxPackets, state.getEnergy(this.nodes[i]) / this.charges[i]);
+        }
+        return Math.max(maxPackets, 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Path other && Arrays.equals(this.nodes, other.nodes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.nodes);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(this.nodes);
+    }
+}
@@ -0,0 +1,250 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.NodeStore;
+import com.grivera.util.SpatialGrid;
+import com.grivera.util.UnionFind;
+
+import java.util.Arrays;
+
+/**
+ * Grows the transmission range of a network step by step, without rebuilding its graph for every range.
+ *
+ * <p>
+ * Growing the range only ever adds edges, so every pair of nodes within the maximum range is found once
+ * (with a {@link SpatialGrid}) and sorted by distance. Each step then only activates the new edges and
+ * merges their components, and {@link #getNetwork()} gives a Sensor Network at the current range
+ * (sharing the nodes of the original) to run the models on.
+ * </p>
+ */
+public class RangeSweep {
+
+    private final SensorNetwork network;
+    private final NodeStore store;
+    private final double maxRange;
+
+    /* The candidate edges, sorted by distance */
+    private final int[] from;
+    private final int[] to;
+    private final double[] distance;
+
+    private final UnionFind components;
+    private final int[] degree;
+    private int activeEdges;
+    private double range;
+
+    /**
+     * Finds the candidate edges of a network, starting at a range without any edges.
+     *
+     * @param network  the network whose nodes to use (its own range is ignored)
+     * @param maxRange the largest range that the sweep can grow to
+     */
+    public RangeSweep(SensorNetwork network, double maxRange) {
+        if (!(maxRange > 0)) {
+            throw new IllegalArgumentException("The maximum transmission range must be positive!");
+        }
+        this.network = network;
+        this.store = network.getNodeStore();
+        this.maxRange = maxRange;
+
+        final NodeStore store = this.store;
+        final int n = store.size();
+        final double limit = maxRange + 0.0001;
+
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, store.getX(i));
+            minY = Math.min(minY, store.getY(i));
+            maxX = Math.max(maxX, store.getX(i));
+            maxY = Math.max(maxY, store.getY(i));
+        }
+        SpatialGrid grid = new SpatialGrid(minX, minY, maxX, maxY, limit, n);
+        for (int i = 0; i < n; i++) {
+            grid.add(i, store.getX(i), store.getY(i));
+        }
+        final double radius = limit * (1 + 1e-9) + 1e-9;
+
+        /* Collect every pair (i < j) within the maximum range */
+        int[][] pairs = {new int[Math.max(16, n)], new int[Math.max(16, n)]};
+        double[][] distances = {new double[pairs[0].length]};
+        int[] count = new int[1];
+        for (int i = 0; i < n; i++) {
+            final int tail = i;
+            grid.forEachWithin(store.getX(i), store.getY(i), radius, j -> {
+                if (j <= tail) {
+                    return;
+                }
+                double d = store.distance(tail, j);
+                if (d > limit) {
+                    return;
+                }
+                if (count[0] == pairs[0].length) {
+                    pairs[0] = Arrays.copyOf(pairs[0], count[0] * 2);
+                    pairs[1] = Arrays.copyOf(pairs[1], count[0] * 2);
+                    distances[0] = Arrays.copyOf(distances[0], count[0] * 2);
+                }
+                pairs[0][count[0]] = tail;
+                pairs[1][count[0]] = j;
+                distances[0][count[0]] = d;
+                count[0]++;
+            });
+        }
+
+        /* Sort by (float) distance packed above the pair, then settle ties of the float by the exact distance */
+        final int edges = count[0];
+        long[] order = new long[edges];
+        for (int e = 0; e < edges; e++) {
+            order[e] = ((long) Float.floatToIntBits((float) distances[0][e]) << 32) | e;
+        }
+        Arrays.sort(order);
+
+        this.from = new int[edges];
+        this.to = new int[edges];
+        this.distance = new double[edges];
+        int e;
+        for (int k = 0; k < edges; k++) {
+            e = (int) order[k];
+            this.from[k] = pairs[0][e];
+            this.to[k] = pairs[1][e];
+            this.distance[k] = distances[0][e];
+        }
+        for (int k = 1; k < edges; k++) {
+            for (int j = k; j > 0 && this.distance[j - 1] > this.distance[j]; j--) {
+                this.swap(j - 1, j);
+            }
+        }
+
+        this.components = new UnionFind(n);
+        this.components.ensureSize(n);
+        this.degree = new int[n];
+    }
+
+    private void swap(int a, int b) {
+        int tmp = this.from[a];
+        this.from[a] = this.from[b];
+        this.from[b] = tmp;
+        tmp = this.to[a];
+        this.to[a] = this.to[b];
+        this.to[b] = tmp;
+        double d = this.distance[a];
+        this.distance[a] = this.distance[b];
+        this.distance[b] = d;
+    }
+
+    /**
+     * Grows the transmission range, activating only the edges between the current and the new range.
+     *
+     * @param range the new transmission range
+     * @return the number of edges that were activated
+     * @throws IllegalArgumentException if the range is below the current range or above the maximum range
+     */
+    public int advanceTo(double range) {
+        if (range < this.range) {
+            throw new IllegalArgumentException("A range sweep can only grow the transmission range!");
+        }
+        if (range > this.maxRange) {
+            throw new IllegalArgumentException(String.format(
+                    "The transmission range cannot exceed the maximum range of the sweep (%f)!", this.maxRange));
+        }
+        this.range = range;
+
+        final double limit = range + 0.0001;
+        int activated = 0;
+        int edge;
+        while (this.activeEdges < this.distance.length && this.distance[this.activeEdges] <= limit) {
+            edge = this.activeEdges++;
+            this.components.union(this.from[edge], this.to[edge]);
+            this.degree[this.from[edge]]++;
+            this.degree[this.to[edge]]++;
+            activated++;
+        }
+        return activated;
+    }
+
+    /**
+     * Creates a Sensor Network with the same nodes and parameters as the original, at the current range.
+     * This only orders the active edges; the edges are never searched for again.
+     *
+     * @return a network at the current range
+     */
+    public SensorNetwork getNetwork() {
+        final int n = this.store.size();
+        final int edges = this.activeEdges;
+
+        int[] start = new int[n + 1];
+        for (int node = 0; node < n; node++) {
+            start[node + 1] = start[node] + this.degree[node];
+        }
+
+        /*
+         * Bucket the directed edges by head, then (stably) by tail, so every row ends up sorted
+         * by uuid like NodeStore#buildEdges sorts it.
+         */
+        int[] byHead = new int[2 * edges];
+        int[] next = Arrays.copyOf(start, n);
+        for (int e = 0; e < edges; e++) {
+            byHead[next[this.to[e]]++] = e;
+            byHead[next[this.from[e]]++] = ~e;
+        }
+
+        int[] target = new int[2 * edges];
+        System.arraycopy(start, 0, next, 0, n);
+        int head, tail;
+        for (int uuid = 1; uuid <= n; uuid++) {
+            head = this.store.getIndexOfUuid(uuid);
+            for (int k = start[head]; k < start[head + 1]; k++) {
+                tail = byHead[k] >= 0 ? this.from[byHead[k]] : this.to[~byHead[k]];
+                target[next[tail]++] = head;
+            }
+        }
+
+        return new SensorNetwork(this.network, this.store.withEdges(this.range, start, target));
+    }
+
+    public boolean isConnected() {
+        return this.components.getComponentCount() <= 1;
+    }
+
+    public int getComponentCount() {
+        return this.components.getComponentCount();
+    }
+
+    public int getLargestComponentSize() {
+        int largest = this.components.largestComponent();
+        return largest < 0 ? 0 : this.components.componentSize(largest);
+    }
+
+    /**
+     * Returns the smallest range (up to the maximum range) at which the network is connected.
+     *
+     * @return the range of the edge that connects the network; otherwise NaN
+     */
+    public double getConnectivityRange() {
+        UnionFind components = new UnionFind(this.store.size());
+        components.ensureSize(this.store.size());
+        if (components.getComponentCount() <= 1) {
+            return 0;
+        }
+        for (int e = 0; e < this.distance.length; e++) {
+            if (components.union(this.from[e], this.to[e]) && components.getComponentCount() == 1) {
+                return this.distance[e];
+            }
+        }
+        return Double.NaN;
+    }
+
+    public double getRange() {
+        return this.range;
+    }
+
+    public double getMaxRange() {
+        return this.maxRange;
+    }
+
+    public int getEdgeCount() {
+        return this.activeEdges;
+    }
+
+    public int getCandidateEdgeCount() {
+        return this.distance.length;
+    }
+}
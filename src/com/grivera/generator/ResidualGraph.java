@@ -0,0 +1,211 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.NetworkState;
+import com.grivera.generator.sensors.NodeStore;
+import com.grivera.util.UnionFind;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * The edges of a network that can still carry a packet with the energy its nodes have left: an edge is live
+ * while its tail can transmit over it and its head can receive. The edges are kept as a bitset over the edge
+ * indices of the {@link NodeStore}, so a search tests one bit per edge instead of comparing costs and energy.
+ *
+ * <p>
+ * The graph listens to the energy of its state: a change of energy only updates the edges into and out
+ * of that node. A reset or restore marks the whole graph stale, and it is rebuilt on the next query.
+ * </p>
+ */
+public final class ResidualGraph implements NetworkState.EnergyListener {
+
+    private final NodeStore store;
+    private final NetworkState state;
+
+    /* The index of the edge in the other direction, for every edge */
+    private final int[] reverse;
+    private final long[] live;
+    private int liveEdges;
+    private boolean stale = true;
+    /* The receiving cost the graph was built with, as a change of packet size changes every edge */
+    private int receivingCost;
+
+    /**
+     * Creates the residual graph of a state and starts listening to it.
+     *
+     * @param store the store whose edges to use
+     * @param state the state whose energy to use
+     */
+    public ResidualGraph(NodeStore store, NetworkState state) {
+        this.store = store;
+        this.state = state;
+
+        final int edges = 2 * store.getEdgeCount();
+        this.reverse = new int[edges];
+        for (int node = 0; node < store.size(); node++) {
+            for (int e = store.getEdgeStart(node); e < store.getEdgeEnd(node); e++) {
+                this.reverse[e] = store.findEdge(store.getEdgeTarget(e), node);
+            }
+        }
+        this.live = new long[(edges + 63) >>> 6];
+        state.addEnergyListener(this);
+    }
+
+    /**
+     * Stops listening to the state, e.g. once the network is no longer searched.
+     */
+    public void detach() {
+        this.state.removeEnergyListener(this);
+    }
+
+    @Override
+    public void energyChanged(int index, int oldEnergy, int newEnergy) {
+        if (this.stale) {
+            return;
+        }
+        int next;
+        for (int e = this.store.getEdgeStart(index); e < this.store.getEdgeEnd(index); e++) {
+            next = this.store.getEdgeTarget(e);
+            this.update(e, index, next);
+            this.update(this.reverse[e], next, index);
+        }
+    }
+
+    @Override
+    public void energiesReset() {
+        this.stale = true;
+    }
+
+    private void update(int edge, int from, int to) {
+        boolean usable = this.store.getTransmissionCost(edge) <= this.state.getEnergy(from)
+                && this.store.getReceivingCost() <= this.state.getEnergy(to);
+        long bit = 1L << edge;
+        boolean wasLive = (this.live[edge >>> 6] & bit) != 0;
+        if (usable && !wasLive) {
+            this.live[edge >>> 6] |= bit;
+            this.liveEdges++;
+        } else if (!usable && wasLive) {
+            this.live[edge >>> 6] &= ~bit;
+            this.liveEdges--;
+        }
+    }
+
+    /**
+     * Rebuilds the graph if the energy of many nodes (or the size of a packet) changed at once since the last query.
+     */
+    public void refresh() {
+        if (!this.stale && this.receivingCost == this.store.getReceivingCost()) {
+            return;
+        }
+        this.receivingCost = this.store.getReceivingCost();
+        Arrays.fill(this.live, 0);
+        this.liveEdges = 0;
+        for (int node = 0; node < this.store.size(); node++) {
+            for (int e = this.store.getEdgeStart(node); e < this.store.getEdgeEnd(node); e++) {
+                this.update(e, node, this.store.getEdgeTarget(e));
+            }
+        }
+        this.stale = false;
+    }
+
+    /**
+     * Tests whether an edge can carry a packet. Call {@link #refresh()} before a batch of tests.
+     *
+     * @param edge the index of the edge in the store
+     * @return true if and only if the edge is live; otherwise false
+     */
+    public boolean isLive(int edge) {
+        return (this.live[edge >>> 6] & (1L << edge)) != 0;
+    }
+
+    /**
+     * Returns the edge in the other direction of an edge.
+     *
+     * @param edge the index of the edge in the store
+     * @return the index of the reverse edge
+     */
+    public int reverseOf(int edge) {
+        return this.reverse[edge];
+    }
+
+    /**
+     * Returns the number of live (directed) edges.
+     *
+     * @return the number of live edges
+     */
+    public int getLiveEdgeCount() {
+        this.refresh();
+        return this.liveEdges;
+    }
+
+    /**
+     * Returns the number of nodes that can neither send nor receive a packet over any edge.
+     *
+     * @return the number of dead nodes
+     */
+    public int getDeadNodeCount() {
+        this.refresh();
+        int dead = 0;
+        for (int node = 0; node < this.store.size(); node++) {
+            if (!this.hasLiveEdge(node)) {
+                dead++;
+            }
+        }
+        return dead;
+    }
+
+    public boolean isDead(int node) {
+        this.refresh();
+        return !this.hasLiveEdge(node);
+    }
+
+    private boolean hasLiveEdge(int node) {
+        for (int e = this.store.getEdgeStart(node); e < this.store.getEdgeEnd(node); e++) {
+            if (this.isLive(e) || this.isLive(this.reverse[e])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits the residual network into components, joining two nodes if a packet can go either way between them
+     * (dead nodes are components of their own).
+     *
+     * @return the components of the residual network
+     */
+    public UnionFind getComponents() {
+        this.refresh();
+        UnionFind components = new UnionFind(this.store.size());
+        components.ensureSize(this.store.size());
+        for (int node = 0; node < this.store.size(); node++) {
+            for (int e = this.store.getEdgeStart(node); e < this.store.getEdgeEnd(node); e++) {
+                if (this.isLive(e)) {
+                    components.union(node, this.store.getEdgeTarget(e));
+                }
+            }
+        }
+        return components;
+    }
+
+    public int getComponentCount() {
+        return this.getComponents().getComponentCount();
+    }
+
+    public int getLargestComponentSize() {
+        UnionFind components = this.getComponents();
+        int largest = components.largestComponent();
+        return largest < 0 ? 0 : components.componentSize(largest);
+    }
+
+    /**
+     * Prints how much of the network is left, e.g. after running a model.
+     *
+     * @param out the stream to print to
+     */
+    public void printSummary(PrintStream out) {
+        out.printf("Live edges: %d / %d\n", this.getLiveEdgeCount(), 2 * this.store.getEdgeCount());
+        out.printf("Dead nodes: %d / %d\n", this.getDeadNodeCount(), this.store.size());
+        out.printf("Components: %d (largest has %d nodes)\n", this.getComponentCount(), this.getLargestComponentSize());
+    }
+}
@@ -0,0 +1,30 @@
+package com.grivera.generator;
+
+/**
+ * How a {@link SensorNetwork} searches for min-cost paths.
+ */
+public enum RoutingMode {
+
+    /**
+     * Dijkstra's algorithm, which settles every node cheaper to reach than the target. Searches from
+     * Data Nodes keep their whole shortest-path tree instead, and only repair the parts of it that lose
+     * their paths as nodes spend their energy.
+     */
+    DIJKSTRA,
+
+    /**
+     * A* search, guided towards the target by a lower bound of the remaining cost: every hop covers at most
+     * the transmission range and costs at least the cost to transmit over no distance plus the cost to receive.
+     * Finds paths of the same cost as Dijkstra's algorithm while settling fewer nodes.
+     */
+    A_STAR,
+
+    /**
+     * A {@link ContractionHierarchy} of the static edge costs, built on the first search (which is slow).
+     * It answers while settling about a tenth of the nodes Dijkstra's algorithm settles. Its path is used
+     * while every node on it can afford the packet; otherwise the path is searched for again with Dijkstra's
+     * algorithm, so the costs always match it (though ties between paths of equal cost may be broken
+     * differently).
+     */
+    CONTRACTION_HIERARCHY
+}
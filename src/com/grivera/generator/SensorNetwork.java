@@ -1,13 +1,20 @@
 package com.grivera.generator;
 
 import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.NetworkState;
+import com.grivera.generator.sensors.NodeOrdering;
+import com.grivera.generator.sensors.NodeStore;
 import com.grivera.generator.sensors.SensorNode;
 import com.grivera.generator.sensors.StorageNode;
 import com.grivera.generator.sensors.TransitionNode;
+import com.grivera.generator.topology.NodeStoreSink;
+import com.grivera.generator.topology.TopologyGenerator;
+import com.grivera.generator.topology.TopologySpec;
 import com.grivera.solver.ILPModel;
 import com.grivera.solver.Model;
-import com.grivera.util.Pair;
-import com.grivera.util.Tuple;
+import com.grivera.util.LongHeap;
+import com.grivera.util.SpatialGrid;
+import com.grivera.util.UnionFind;
 
 import java.io.File;
 import java.io.IOException;
@@ -22,20 +29,31 @@ import java.util.*;
  */
 public class SensorNetwork implements Network {
 
+    private final NodeStore store;
+    private NetworkState state;
     private List<SensorNode> nodes;
     private List<DataNode> dNodes;
     private List<StorageNode> sNodes;
     private List<TransitionNode> tNodes;
     private Map<SensorNode, Set<SensorNode>> graph;
 
-    private final Map<Pair<Pair<SensorNode, Integer>, Pair<SensorNode, Integer>>, Integer> costMap = new HashMap<>();
-
     private final double width, length;
     private int dataPacketCount;
     private int storageCapacity;
     private final double transmissionRange;
     private int batteryCapacity;
 
+    private RoutingMode routingMode = RoutingMode.DIJKSTRA;
+    private long settledNodes;
+    private int searches;
+    private int fallbacks;
+    private ContractionHierarchy hierarchy;
+    private ContractionHierarchy.Query hierarchyQuery;
+    private ResidualGraph residual;
+    private ShortestPathTrees trees;
+    private KShortestPaths kShortestPaths;
+    private PacketTransfer transfer;
+
     /**
      * Constructor to create a Sensor Network
      *
@@ -52,6 +70,15 @@ public class SensorNetwork implements Network {
      * @param Vh the maximum value of a data packet (inclusive)
      */
     public SensorNetwork(double x, double y, int N, double tr, int p, int q, int s, int m, int c, int Vl, int Vh) {
+        this(x, y, N, tr, p, q, s, m, c, Vl, Vh, new SplittableRandom(), false);
+    }
+
+    /**
+     * Creates a random Sensor Network from the given random numbers. When repairing, the
+     * nodes outside the largest connected component are moved next to it, so the network
+     * is always connected.
+     */
+    SensorNetwork(double x, double y, int N, double tr, int p, int q, int s, int m, int c, int Vl, int Vh, SplittableRandom rand, boolean repair) {
         this.width = x;
         this.length = y;
         this.dataPacketCount = q;
@@ -62,15 +89,81 @@ public class SensorNetwork implements Network {
         /* Used to separate each type of node for later use and retrieval */
         if (p + s > N) throw new IllegalArgumentException("Invalid SensorNetwork constructor parameters");
 
-        this.dNodes = new ArrayList<>(p);
-        this.sNodes = new ArrayList<>(s);
-        this.tNodes = new ArrayList<>(N - s - p);
+        this.store = new NodeStore(tr, N);
 
         /*
          * Init the Sensor com.grivera.generator.Network to allow basic operations on it
          */
-        this.nodes = this.initNodes(N, p, s, Vl, Vh);
-        this.graph = this.initGraph(this.nodes);
+        this.initNodes(N, p, s, Vl, Vh, rand, repair);
+        this.initGraph();
+    }
+
+    /**
+     * Creates a Sensor Network around the nodes of a generated topology.
+     *
+     * @param spec  the parameters the topology was generated with
+     * @param store the generated nodes
+     */
+    private SensorNetwork(TopologySpec spec, NodeStore store) {
+        this.width = spec.width();
+        this.length = spec.length();
+        this.dataPacketCount = spec.dataPacketCount();
+        this.storageCapacity = spec.storageCapacity();
+        this.transmissionRange = spec.transmissionRange();
+        this.batteryCapacity = spec.batteryCapacity();
+
+        this.store = store;
+        this.initGraph();
+    }
+
+    /**
+     * Creates a Sensor Network over the nodes of another one, with the (already built) edges of the given store.
+     *
+     * @param base  the network with the same nodes and parameters
+     * @param store a store over the nodes of the base network (see {@link NodeStore#withEdges(double, int[], int[])})
+     */
+    SensorNetwork(SensorNetwork base, NodeStore store) {
+        this.width = base.width;
+        this.length = base.length;
+        this.dataPacketCount = base.dataPacketCount;
+        this.storageCapacity = base.storageCapacity;
+        this.transmissionRange = store.getTransmissionRange();
+        this.batteryCapacity = base.batteryCapacity;
+
+        this.store = store;
+        this.initLists();
+
+        /* Carry over any parameters that were changed on the base network */
+        this.setOverflowPackets(base.dataPacketCount);
+        this.setStorageCapacity(base.storageCapacity);
+        this.setBatteryCapacity(base.batteryCapacity);
+        this.state.reset();
+    }
+
+    /**
+     * Creates a Sensor Network that shares the topology of another one, but has its own
+     * energy, packets and parameters.
+     *
+     * @param other the network to fork
+     */
+    private SensorNetwork(SensorNetwork other) {
+        this.width = other.width;
+        this.length = other.length;
+        this.dataPacketCount = other.dataPacketCount;
+        this.storageCapacity = other.storageCapacity;
+        this.transmissionRange = other.transmissionRange;
+        this.batteryCapacity = other.batteryCapacity;
+
+        this.routingMode = other.routingMode;
+        this.hierarchy = other.hierarchy;
+        this.kShortestPaths = other.kShortestPaths == null ? null : other.kShortestPaths.share();
+
+        this.store = other.store;
+        this.state = other.state.fork();
+        this.nodes = new NodeList<>(this.state, ((NodeList<SensorNode>) other.nodes).indices);
+        this.dNodes = new NodeList<>(this.state, ((NodeList<DataNode>) other.dNodes).indices);
+        this.sNodes = new NodeList<>(this.state, ((NodeList<StorageNode>) other.sNodes).indices);
+        this.tNodes = new NodeList<>(this.state, ((NodeList<TransitionNode>) other.tNodes).indices);
     }
 
     /**
@@ -123,19 +216,10 @@ public class SensorNetwork implements Network {
             this.batteryCapacity = Integer.parseInt(tokens[1]);
             lineNumber++;
 
-            SensorNode.resetCounter();
-            StorageNode.resetCounter();
-            DataNode.resetCounter();
-            TransitionNode.resetCounter();
-
-            this.nodes = new ArrayList<>();
-            this.sNodes = new ArrayList<>();
-            this.dNodes = new ArrayList<>();
-            this.tNodes = new ArrayList<>();
+            this.store = new NodeStore(this.transmissionRange, N);
 
             String[] lineArgs;
             double x, y;
-            SensorNode node;
             for (int i = 0; i < N; i++) {
                 lineArgs = fileScanner.nextLine().split(" ");
                 if (lineArgs.length < 3 || lineArgs.length > 4) {
@@ -146,28 +230,19 @@ public class SensorNetwork implements Network {
                 y = Double.parseDouble(lineArgs[2]);
 
                 // Requires JDK 12+
-                node = switch (lineArgs[0]) {
+                switch (lineArgs[0]) {
                     case "d" ->
-                            new DataNode(x, y, this.transmissionRange, this.batteryCapacity, this.dataPacketCount, Integer.parseInt(lineArgs[3]));
+                            this.store.addDataNode(x, y, this.batteryCapacity, this.dataPacketCount, Integer.parseInt(lineArgs[3]));
                     case "s" ->
-                            new StorageNode(x, y, this.transmissionRange, this.batteryCapacity, this.storageCapacity);
+                            this.store.addStorageNode(x, y, this.batteryCapacity, this.storageCapacity);
                     case "t" ->
-                            new TransitionNode(x, y, this.transmissionRange, this.batteryCapacity);
+                            this.store.addTransitionNode(x, y, this.batteryCapacity);
                     default ->
                             throw new IOException();
-                };
-
-                this.nodes.add(node);
-                if (node instanceof DataNode) {
-                    this.dNodes.add((DataNode) node);
-                } else if (node instanceof StorageNode) {
-                    this.sNodes.add((StorageNode) node);
-                } else {
-                    this.tNodes.add((TransitionNode) node);
                 }
                 lineNumber++;
             }
-            this.graph = this.initGraph(this.nodes);
+            this.initGraph();
         } catch (IOException e) {
             throw new IllegalArgumentException("Invalid file provided: " + e.getMessage());
         }
@@ -189,33 +264,42 @@ public class SensorNetwork implements Network {
      * @param Vh the maximum value of a data packet (inclusive)
      */
     public static SensorNetwork of(double x, double y, int N, double tr, int p, int q, int s, int m, int c, int Vl, int Vh) {
-        SensorNetwork network;
-        int attempts = 0;
-        do {
-            network = new SensorNetwork(x, y, N, tr, p, q, s, m, c, Vl, Vh);
-
-            /* Checks if the parameters in the program are feasible */
-            if (!network.isFeasible()) {
-                System.out.println("Invalid network parameters! Please re-run the program.");
-                System.out.println("Exiting the program...");
-                System.exit(0);
-            }
-
-            /*
-             * Checks if we were able to find a valid network within a reasonable range of
-             * attempts
-             */
-            if (attempts > N * 1000) {
-                System.out.printf("Failed to create a connected network after %d tries! Please re-run the program.\n",
-                        N * 1000);
-                System.out.println("Exiting the program...");
-                System.exit(0);
-            }
-            attempts++;
+        return of(x, y, N, tr, p, q, s, m, c, Vl, Vh, new SplittableRandom().nextLong());
+    }
 
-        } while (!(network.isConnected()));
+    /**
+     * Generates a connected Sensor Network in one pass: the nodes that end up outside the largest
+     * connected component are moved within range of it (see {@link ConnectedNetworkSearch}).
+     * The same seed always gives back the same network.
+     *
+     * @param seed the seed of the random networks
+     * @throws IllegalArgumentException if the parameters cannot give a feasible network
+     * @throws IllegalStateException    if no connected network was found
+     */
+    public static SensorNetwork of(double x, double y, int N, double tr, int p, int q, int s, int m, int c, int Vl, int Vh, long seed) {
+        /* Repairing always connects the first network, so one attempt on one thread is enough */
+        try (ConnectedNetworkSearch search = new ConnectedNetworkSearch(x, y, N, tr, p, q, s, m, c, Vl, Vh,
+                seed, 1, 1, true)) {
+            return search.get();
+        }
+    }
 
-        return network;
+    /**
+     * Generates a Sensor Network with a topology generator, which places the nodes so that the
+     * network is connected without retrying.
+     *
+     * @param generator the generator that places the nodes
+     * @param spec      the parameters of the network
+     * @param seed      the seed of the generator (the same seed always gives back the same network)
+     * @throws IllegalArgumentException if the parameters cannot give a feasible network
+     */
+    public static SensorNetwork of(TopologyGenerator generator, TopologySpec spec, long seed) {
+        if (spec.dataNodeCount() * spec.dataPacketCount() > (spec.nodeCount() - spec.dataNodeCount()) * spec.storageCapacity()) {
+            throw new IllegalArgumentException("Invalid network parameters! There is not enough storage for every data packet.");
+        }
+        NodeStoreSink sink = new NodeStoreSink();
+        generator.generate(spec, seed, sink);
+        return new SensorNetwork(spec, sink.getStore());
     }
 
     /**
@@ -275,20 +359,15 @@ public class SensorNetwork implements Network {
         return sn;
     }
 
-    private List<SensorNode> initNodes(int nodeCount, int p, int s, int Vl, int Vh) {
-        List<SensorNode> nodes = new ArrayList<>(nodeCount);
-        Random rand = new Random();
-
-        /* Reset Counters (This is a temporary fix) */
-        SensorNode.resetCounter();
-        StorageNode.resetCounter();
-        DataNode.resetCounter();
-        TransitionNode.resetCounter();
+    private void initNodes(int nodeCount, int p, int s, int Vl, int Vh, SplittableRandom rand, boolean repair) {
+        /* Track the connected components while placing the nodes */
+        final double range = this.transmissionRange + 0.0001;
+        SpatialGrid grid = new SpatialGrid(0, 0, this.width, this.length, range, nodeCount);
+        UnionFind components = new UnionFind(nodeCount);
 
         /* Choose p random nodes to be Generator Nodes, the rest are Storage Nodes */
         int choice;
         double x, y;
-        SensorNode tmp;
         int tmpVal;
         for (int index = 0; index < nodeCount; index++) {
             choice = rand.nextInt(1, 11);
@@ -298,43 +377,120 @@ public class SensorNetwork implements Network {
             tmpVal = rand.nextInt(Vh - Vl + 1) + Vl;
 
             if ((choice < 4 && p > 0) || nodeCount - index <= p) {
-                tmp = new DataNode(x, y, this.transmissionRange, this.batteryCapacity, this.dataPacketCount, tmpVal);
-                this.dNodes.add((DataNode) tmp);
+                this.store.addDataNode(x, y, this.batteryCapacity, this.dataPacketCount, tmpVal);
                 p--;
             } else if ((choice < 8 && s > 0) || nodeCount - index - p - s <= 0) {
-                tmp = new StorageNode(x, y, this.transmissionRange, this.batteryCapacity, this.storageCapacity);
-                this.sNodes.add((StorageNode) tmp);
+                this.store.addStorageNode(x, y, this.batteryCapacity, this.storageCapacity);
                 s--;
             } else {
-                tmp = new TransitionNode(x, y, this.transmissionRange, this.batteryCapacity);
-                this.tNodes.add((TransitionNode) tmp);
+                this.store.addTransitionNode(x, y, this.batteryCapacity);
             }
-            nodes.add(tmp);
+            this.place(index, x, y, grid, components);
+        }
+
+        if (repair && components.getComponentCount() > 1) {
+            this.repairConnectivity(components, rand);
         }
-        return nodes;
     }
 
-    private Map<SensorNode, Set<SensorNode>> initGraph(List<SensorNode> nodes) {
-        Map<SensorNode, Set<SensorNode>> graph = new HashMap<>();
+    private void place(int index, double x, double y, SpatialGrid grid, UnionFind components) {
+        final double range = this.transmissionRange + 0.0001;
+        components.ensureSize(index + 1);
+        grid.forEachWithin(x, y, range * (1 + 1e-9) + 1e-9, other -> {
+            if (this.store.distance(index, other) <= range) {
+                components.union(index, other);
+            }
+        });
+        grid.add(index, x, y);
+    }
+
+    /**
+     * Moves every node outside the largest component to a random spot within range of a random
+     * node of that component, in a single pass.
+     */
+    private void repairConnectivity(UnionFind components, SplittableRandom rand) {
+        final int n = this.store.size();
+        final int giant = components.find(components.largestComponent());
+        int[] anchors = new int[components.componentSize(giant)];
+        int[] stray = new int[n - anchors.length];
+        int anchorCount = 0;
+        int strayCount = 0;
+        for (int index = 0; index < n; index++) {
+            if (components.find(index) == giant) {
+                anchors[anchorCount++] = index;
+            } else {
+                stray[strayCount++] = index;
+            }
+        }
+
+        /* The largest component never moves, so every moved node stays within range of it */
+        int anchor;
+        double angle, radius, x, y;
+        for (int index : stray) {
+            anchor = anchors[rand.nextInt(anchorCount)];
+            do {
+                angle = 2 * Math.PI * rand.nextDouble();
+                radius = this.transmissionRange * rand.nextDouble();
+                x = this.store.getX(anchor) + radius * Math.cos(angle);
+                y = this.store.getY(anchor) + radius * Math.sin(angle);
+            } while (x < 0 || x > this.width || y < 0 || y > this.length);
+
+            this.store.setPosition(index, x, y);
+        }
+    }
 
-        /* Create the adjacency graph */
-        SensorNode node1;
-        SensorNode node2;
-        for (int index1 = 0; index1 < nodes.size(); index1++) {
-            node1 = nodes.get(index1);
+    private void initGraph() {
+        /* Create the adjacency graph (non-directed) */
+        this.store.buildEdges();
+        this.initLists();
+    }
 
-            /* Populate the graph with adjacent nodes */
-            graph.putIfAbsent(node1, new HashSet<>());
-            for (int index2 = index1 + 1; index2 < nodes.size(); index2++) {
-                node2 = nodes.get(index2);
-                graph.putIfAbsent(node2, new HashSet<>());
-                if (node1.inRangeOf(node2)) {
-                    graph.get(node1).add(node2);
-                    graph.get(node2).add(node1); // This makes the graph a non-directed graph
-                }
+    private void initLists() {
+        /* Separate each type of node for later use and retrieval, listing the nodes by uuid */
+        final int n = this.store.size();
+        int[] counts = new int[3];
+        for (int index = 0; index < n; index++) {
+            counts[this.store.getType(index)]++;
+        }
+        int[][] byType = {new int[counts[NodeStore.DATA]], new int[counts[NodeStore.STORAGE]], new int[counts[NodeStore.TRANSITION]]};
+        int[] byUuid = this.store.isReordered() ? new int[n] : null;
+        Arrays.fill(counts, 0);
+        byte type;
+        int index;
+        for (int uuid = 1; uuid <= n; uuid++) {
+            index = this.store.getIndexOfUuid(uuid);
+            type = this.store.getType(index);
+            byType[type][counts[type]++] = index;
+            if (byUuid != null) {
+                byUuid[uuid - 1] = index;
             }
         }
-        return graph;
+
+        this.state = this.store.createState();
+        this.nodes = new NodeList<>(this.state, byUuid);
+        this.dNodes = new NodeList<>(this.state, byType[NodeStore.DATA]);
+        this.sNodes = new NodeList<>(this.state, byType[NodeStore.STORAGE]);
+        this.tNodes = new NodeList<>(this.state, byType[NodeStore.TRANSITION]);
+    }
+
+    /**
+     * Creates a Sensor Network with the same nodes, parameters and results, but with its nodes
+     * renumbered internally so that neighbors are close together in memory. Uuids and names stay
+     * the same, and the nodes are still listed by uuid.
+     *
+     * @param ordering how to order the nodes
+     * @return the reordered network
+     */
+    public SensorNetwork reordered(NodeOrdering ordering) {
+        return new SensorNetwork(this, this.store.reordered(ordering.order(this.store)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SensorNetwork fork() {
+        return new SensorNetwork(this);
     }
 
     @Override
@@ -347,19 +503,39 @@ public class SensorNetwork implements Network {
         return this.length;
     }
 
+    @Override
+    public double getTransmissionRange() {
+        return this.transmissionRange;
+    }
+
+    @Override
+    public int getDataPacketCount() {
+        return this.dataPacketCount;
+    }
+
+    @Override
+    public int getStorageCapacity() {
+        return this.storageCapacity;
+    }
+
+    @Override
+    public int getBatteryCapacity() {
+        return this.batteryCapacity;
+    }
+
     @Override
     public List<SensorNode> getSensorNodes() {
-        return Collections.unmodifiableList(this.nodes);
+        return this.nodes;
     }
 
     @Override
     public int getSensorNodeCount() {
-        return this.nodes.size();
+        return this.store.size();
     }
 
     @Override
     public List<DataNode> getDataNodes() {
-        return Collections.unmodifiableList(this.dNodes);
+        return this.dNodes;
     }
 
     @Override
@@ -369,7 +545,7 @@ public class SensorNetwork implements Network {
 
     @Override
     public List<StorageNode> getStorageNodes() {
-        return Collections.unmodifiableList(this.sNodes);
+        return this.sNodes;
     }
 
     @Override
@@ -379,7 +555,7 @@ public class SensorNetwork implements Network {
 
     @Override
     public List<TransitionNode> getTransitionNodes() {
-        return Collections.unmodifiableList(this.tNodes);
+        return this.tNodes;
     }
 
     @Override
@@ -392,7 +568,7 @@ public class SensorNetwork implements Network {
      */
     @Override
     public boolean isConnected() {
-        return dfs(this.nodes);
+        return this.bfs();
     }
 
     /**
@@ -401,20 +577,38 @@ public class SensorNetwork implements Network {
     @Override
     public boolean isFeasible() {
         int p = this.dNodes.size();
-        return p * this.dataPacketCount <= (this.nodes.size() - p) * this.storageCapacity;
+        return p * this.dataPacketCount <= (this.store.size() - p) * this.storageCapacity;
     }
 
     public boolean isMaxFeasible() {
+        NetworkState.Snapshot snapshot = this.state.capture();
         Model model = new ILPModel(this);
         model.run();
-        this.resetEnergy();
-        this.resetPackets();
+        this.state.restore(snapshot);
+        this.state.release(snapshot);
         return model.getTotalPackets() == this.dNodes.stream().mapToInt(DataNode::getOverflowPackets).sum();
     }
 
     @Override
     public Map<SensorNode, Set<SensorNode>> getAdjacencyList() {
-        return Collections.unmodifiableMap(this.graph);
+        if (this.graph == null) {
+            Map<SensorNode, Set<SensorNode>> graph = new LinkedHashMap<>();
+            for (SensorNode node : this.nodes) {
+                graph.put(node, this.getNeighbors(node));
+            }
+            this.graph = Collections.unmodifiableMap(graph);
+        }
+        return this.graph;
+    }
+
+    @Override
+    public NodeStore getNodeStore() {
+        return this.store;
+    }
+
+    @Override
+    public NetworkState getState() {
+        return this.state;
     }
 
     @Override
@@ -427,7 +621,18 @@ public class SensorNetwork implements Network {
      */
     @Override
     public List<SensorNode> getMinCostPath(SensorNode from, SensorNode to) {
-        return bfs(this.graph, from, to);
+        return this.search(from.getIndex(), to.getIndex(), 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SensorNode> getMinCostPath(SensorNode from, SensorNode to, int packets) {
+        if (packets < 1) {
+            throw new IllegalArgumentException("The number of packets must be positive!");
+        }
+        return this.search(from.getIndex(), to.getIndex(), packets);
     }
 
     /**
@@ -452,15 +657,15 @@ public class SensorNetwork implements Network {
         try (PrintWriter pw = new PrintWriter(file)) {
             pw.printf("%f %f %f\n", this.getWidth(), this.getLength(), this.transmissionRange); // X, Y, Tr
             pw.printf("%d %d\n", this.dataPacketCount, this.storageCapacity); // q m
-            pw.printf("%d %d\n", this.nodes.size(), this.batteryCapacity); // N c
-
-            for (SensorNode n : this.nodes) {
-                if (n instanceof DataNode dn) {         // JDK 15+ feature
-                    pw.printf("%c %f %f %d\n", 'd', dn.getX(), dn.getY(), dn.getOverflowPacketValue());
-                } else if (n instanceof StorageNode) {
-                    pw.printf("%c %f %f\n", 's', n.getX(), n.getY());
-                } else {
-                    pw.printf("%c %f %f\n", 't', n.getX(), n.getY());
+            pw.printf("%d %d\n", this.store.size(), this.batteryCapacity); // N c
+
+            int index;
+            for (int uuid = 1; uuid <= this.store.size(); uuid++) {
+                index = this.store.getIndexOfUuid(uuid);
+                switch (this.store.getType(index)) {
+                    case NodeStore.DATA -> pw.printf("%c %f %f %d\n", 'd', this.store.getX(index), this.store.getY(index), this.store.getValue(index));
+                    case NodeStore.STORAGE -> pw.printf("%c %f %f\n", 's', this.store.getX(index), this.store.getY(index));
+                    default -> pw.printf("%c %f %f\n", 't', this.store.getX(index), this.store.getY(index));
                 }
             }
             System.out.printf("Saved sensor network in file \"%s\"!\n", fileName);
@@ -469,31 +674,41 @@ public class SensorNetwork implements Network {
         }
     }
 
-    private boolean dfs(List<SensorNode> nodes) {
-        Stack<SensorNode> stack = new Stack<>();
-        Set<SensorNode> seen = new HashSet<>();
-        stack.push(nodes.get(0));
-
-        SensorNode curr;
-        while (!stack.isEmpty()) {
-            curr = stack.pop();
-            seen.add(curr);
+    private boolean bfs() {
+        final NodeStore store = this.store;
+        final int n = store.size();
+        if (n == 0) {
+            return true;
+        }
 
-            for (SensorNode neighbor : this.getNeighbors(curr)) {
-                if (!seen.contains(neighbor)) {
-                    stack.push(neighbor);
+        boolean[] seen = new boolean[n];
+        int[] queue = new int[n];
+        int head = 0;
+        int tail = 0;
+        seen[0] = true;
+        queue[tail++] = 0;
+
+        int curr;
+        int next;
+        while (head < tail) {
+            curr = queue[head++];
+            for (int e = store.getEdgeStart(curr); e < store.getEdgeEnd(curr); e++) {
+                next = store.getEdgeTarget(e);
+                if (!seen[next]) {
+                    seen[next] = true;
+                    queue[tail++] = next;
                 }
             }
         }
-        return seen.size() == nodes.size();
+        return tail == n;
     }
 
     public Set<SensorNode> getNeighbors(SensorNode node) {
-        return this.graph.getOrDefault(node, Set.of());
+        return new NeighborSet(this.state, node.getIndex());
     }
 
     public boolean isConnected(SensorNode sensorNode1, SensorNode sensorNode2) {
-        return this.getNeighbors(sensorNode1).contains(sensorNode2);
+        return this.store.findEdge(sensorNode1.getIndex(), sensorNode2.getIndex()) >= 0;
     }
 
     /**
@@ -501,116 +716,415 @@ public class SensorNetwork implements Network {
      */
     @Override
     public void saveAsCsInp(String fileName) {
+        File file = new File(fileName);
+        try (PrintWriter writer = new PrintWriter(file)) {
+            this.writeCsInp(writer);
+            System.out.printf("Saved flow network in file \"%s\"!\n", fileName);
+        } catch (IOException e) {
+            System.out.printf("ERROR: Failed to create %s\n", fileName);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeCsInp(PrintWriter writer) {
         final int supply = this.dataPacketCount * this.dNodes.size();
         final int demand = -supply;
 
         final int totalNodes = this.dNodes.size() + this.sNodes.size() + 3;
         final int totalEdges = this.getEdgeCount();
 
-        File file = new File(fileName);
-        try (PrintWriter writer = new PrintWriter(file)) {
-            /* Header */
-            writer.printf("c Min-Cost flow problem with %d nodes and %d arcs (edges)\n", totalNodes, totalEdges);
-            writer.printf("p min %d %d\n", totalNodes, totalEdges);
-            writer.println();
+        /* Header */
+        writer.printf("c Min-Cost flow problem with %d nodes and %d arcs (edges)\n", totalNodes, totalEdges);
+        writer.printf("p min %d %d\n", totalNodes, totalEdges);
+        writer.println();
 
-            /* Set s (source) and t (sink) nodes */
-            writer.printf("c Supply of %d at node %d (\"Source\")\n", supply, 0);
-            writer.printf("n %d %d\n", 0, supply);
-            writer.println();
+        /* Set s (source) and t (sink) nodes */
+        writer.printf("c Supply of %d at node %d (\"Source\")\n", supply, 0);
+        writer.printf("n %d %d\n", 0, supply);
+        writer.println();
 
-            writer.printf("c Demand of %d at node %d (\"Sink\")\n", demand, totalNodes - 1);
-            writer.printf("n %d %d\n", totalNodes - 1, demand);
-            writer.println();
+        writer.printf("c Demand of %d at node %d (\"Sink\")\n", demand, totalNodes - 1);
+        writer.printf("n %d %d\n", totalNodes - 1, demand);
+        writer.println();
 
-            /* Arcs */
-            writer.println("c arc list follows");
-            writer.println("c arc has <tail> <head> <capacity l.b.> <capacity u.b> <cost>");
+        /* Arcs */
+        writer.println("c arc list follows");
+        writer.println("c arc has <tail> <head> <capacity l.b.> <capacity u.b> <cost>");
 
-            /* Path from Source to DN is always 0 cost (not represented in the network) */
-            for (DataNode dn : this.dNodes) {
-                writer.printf("c Source -> %s\n", dn.getName());
-                writer.printf("a %d %d %d %d %d\n", 0, dn.getUuid(), 0, this.dataPacketCount, 0);
+        /* Path from Source to DN is always 0 cost (not represented in the network) */
+        for (DataNode dn : this.dNodes) {
+            writer.printf("c Source -> %s\n", dn.getName());
+            writer.printf("a %d %d %d %d %d\n", 0, dn.getUuid(), 0, this.dataPacketCount, 0);
+        }
+        writer.println();
+
+        /* Find all paths from DN# -> SN#, Dummy */
+        int profit;
+        for (DataNode dn : this.dNodes) {
+            for (StorageNode sn : this.sNodes) {
+                writer.printf("c %s -> %s\n", dn.getName(), sn.getName());
+                profit = this.calculateProfitOf(dn, sn);
+                writer.printf("a %d %d %d %d %d\n", dn.getUuid(), sn.getUuid(),
+                        0, this.dataPacketCount, -profit
+                );
             }
+            writer.printf("c %s to Dummy Node\n", dn.getName());
+            writer.printf("a %d %d %d %d %d\n", dn.getUuid(), totalNodes - 2, 0, this.dataPacketCount, 0);
             writer.println();
+        }
 
-            /* Find all paths from DN# -> SN#, Dummy */
-            int profit;
-            for (DataNode dn : this.dNodes) {
-                for (StorageNode sn : this.sNodes) {
-                    writer.printf("c %s -> %s\n", dn.getName(), sn.getName());
-                    profit = this.calculateProfitOf(dn, sn);
-                    writer.printf("a %d %d %d %d %d\n", dn.getUuid(), sn.getUuid(),
-                            0, this.dataPacketCount, -profit
-                    );
-                }
-                writer.printf("c %s to Dummy Node\n", dn.getName());
-                writer.printf("a %d %d %d %d %d\n", dn.getUuid(), totalNodes - 2, 0, this.dataPacketCount, 0);
-                writer.println();
+        /* Path from SN, Dummy -> Sink is always 0 cost (not represented in the network) */
+        writer.println("c SNs to Sink");
+        for (SensorNode sn : this.sNodes) {
+            writer.printf("a %d %d %d %d %d\n",
+                    sn.getUuid(), totalNodes - 1, 0, this.storageCapacity, 0);
+        }
+        writer.println("c Dummy to Sink");
+        writer.printf("a %d %d %d %d %d\n", totalNodes - 2, totalNodes - 1, 0, supply, 0);
+        writer.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<SensorNode> getWidestPath(SensorNode from, SensorNode to) {
+        return this.searchWidest(from.getIndex(), to.getIndex());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<List<SensorNode>> getNearestStoragePaths(DataNode dn) {
+        return this.searchStorage(dn.getIndex(), dn.getPacketsLeft());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<List<SensorNode>> getNearestStoragePaths(DataNode dn, int packets) {
+        return this.searchStorage(dn.getIndex(), packets);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<List<SensorNode>> getKShortestPaths(SensorNode from, SensorNode to, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("The number of paths must be positive!");
+        }
+        if (this.kShortestPaths == null || !this.kShortestPaths.isCurrent()) {
+            this.kShortestPaths = new KShortestPaths(this.store);
+        }
+        List<int[]> found = this.kShortestPaths.find(from.getIndex(), to.getIndex(), k);
+        this.searches++;
+        this.settledNodes += this.kShortestPaths.takeSettledNodeCount();
+
+        List<List<SensorNode>> paths = new ArrayList<>(found.size());
+        List<SensorNode> path;
+        for (int[] nodes : found) {
+            path = new ArrayList<>(nodes.length);
+            for (int node : nodes) {
+                path.add(this.state.getNode(node));
             }
+            paths.add(path);
+        }
+        return paths;
+    }
 
-            /* Path from SN, Dummy -> Sink is always 0 cost (not represented in the network) */
-            writer.println("c SNs to Sink");
-            for (SensorNode sn : this.sNodes) {
-                writer.printf("a %d %d %d %d %d\n",
-                        sn.getUuid(), totalNodes - 1, 0, this.storageCapacity, 0);
+    /*
+     * Without packets, an edge can be used if its tail can transmit and its head can receive one packet. With
+     * packets, every node must afford its whole share of them (relays both receive and transmit), and the last
+     * node must be able to store them.
+     */
+    private List<SensorNode> search(int start, int end, int packets) {
+        if (packets > 0 && !this.state.getNode(end).canStoreFrom(this.state.getNode(start), packets)) {
+            return new ArrayList<>(List.of(this.state.getNode(end)));
+        }
+        if (packets == 0 && this.routingMode == RoutingMode.DIJKSTRA && this.store.getType(start) == NodeStore.DATA) {
+            return this.searchTree(start, end);
+        }
+        if (packets == 0 && this.routingMode == RoutingMode.CONTRACTION_HIERARCHY) {
+            List<SensorNode> path = this.searchHierarchy(start, end);
+            if (path != null) {
+                return path;
             }
-            writer.println("c Dummy to Sink");
-            writer.printf("a %d %d %d %d %d\n", totalNodes - 2, totalNodes - 1, 0, supply, 0);
+            this.fallbacks++;
+        }
 
-            System.out.printf("Saved flow network in file \"%s\"!\n", fileName);
-        } catch (IOException e) {
-            System.out.printf("ERROR: Failed to create %s\n", fileName);
+        final NodeStore store = this.store;
+        final NetworkState state = this.state;
+        final int receivingCost = store.getReceivingCost();
+        final ResidualGraph residual = this.getResidualGraph();
+        residual.refresh();
+
+        /* A* adds a lower bound of the cost left to the target: the fewest hops times the cheapest hop */
+        final boolean guided = this.routingMode == RoutingMode.A_STAR;
+        final double hopRange = this.transmissionRange + 0.0001;
+        final int hopCost = store.getMinTransmissionCost() + receivingCost;
+
+        int[] dist = new int[store.size()];
+        int[] prev = new int[store.size()];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        Arrays.fill(prev, -1);
+        boolean[] settled = new boolean[store.size()];
+
+        /* Ties are broken by uuid, so reordered networks find the same paths */
+        LongHeap heap = new LongHeap();
+        dist[start] = 0;
+        heap.push(LongHeap.pack(guided ? (int) Math.ceil(store.distance(start, end) / hopRange) * hopCost : 0, store.getUuid(start)));
+        this.searches++;
+
+        long top;
+        int curr;
+        int next;
+        int nextCost;
+        int estimate;
+        while (!heap.isEmpty()) {
+            top = heap.pop();
+            curr = store.getIndexOfUuid(LongHeap.node(top));
+            if (settled[curr]) {
+                continue;
+            }
+            settled[curr] = true;
+            this.settledNodes++;
+            if (curr == end) {
+                break;
+            }
+
+            for (int e = store.getEdgeStart(curr); e < store.getEdgeEnd(curr); e++) {
+                next = store.getEdgeTarget(e);
+                if (settled[next]) {
+                    continue;
+                }
+                if (packets == 0) {
+                    if (!residual.isLive(e)) {
+                        continue;
+                    }
+                } else if ((long) packets * (store.getTransmissionCost(e) + (curr == start ? 0 : receivingCost)) > state.getEnergy(curr)
+                        || (long) packets * receivingCost > state.getEnergy(next)) {
+                    continue;
+                }
+                nextCost = dist[curr] + store.getTransmissionCost(e) + receivingCost;
+                if (nextCost < dist[next]) {
+                    dist[next] = nextCost;
+                    prev[next] = curr;
+                    estimate = guided ? (int) Math.ceil(store.distance(next, end) / hopRange) * hopCost : 0;
+                    heap.push(LongHeap.pack(nextCost + estimate, store.getUuid(next)));
+                }
+            }
         }
+
+        /* Unreachable targets give back a path of only the target */
+        List<SensorNode> path = new ArrayList<>();
+        for (int node = end; node != -1; node = prev[node]) {
+            path.add(state.getNode(node));
+        }
+        Collections.reverse(path);
+        return path;
     }
 
-    private List<SensorNode> bfs(Map<SensorNode, Set<SensorNode>> graph, SensorNode start, SensorNode end) {
-        Queue<Tuple<SensorNode, Integer, SensorNode>> q = new PriorityQueue<>(Comparator.comparing(Tuple::second));
-        Map<SensorNode, SensorNode> backPointers = new HashMap<>();
-        for (SensorNode neighbor : graph.getOrDefault(start, Set.of())) {
-            if (!(start.canTransmitTo(neighbor, 1) && neighbor.canReceiveFrom(start, 1))) {
-                continue;
+    /* Data Nodes keep their shortest-path tree between searches, repaired as the energy of nodes runs out */
+    private List<SensorNode> searchTree(int start, int end) {
+        if (this.trees == null) {
+            this.trees = new ShortestPathTrees(this.store, this.state, this.getResidualGraph());
+        }
+        int[] parents = this.trees.getParents(start);
+        this.searches++;
+        this.settledNodes += this.trees.takeSettledNodeCount();
+
+        /* Unreachable targets give back a path of only the target */
+        List<SensorNode> path = new ArrayList<>();
+        for (int node = end; node != -1; node = parents[node]) {
+            path.add(this.state.getNode(node));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /*
+     * The hierarchy ignores energy, so its path is only used if every hop can afford the packet. The path is
+     * then the cheapest one of the energy-aware search too, since that search only ever drops edges.
+     */
+    private List<SensorNode> searchHierarchy(int start, int end) {
+        if (this.hierarchy == null || !this.hierarchy.isCurrent()) {
+            this.hierarchy = new ContractionHierarchy(this.store);
+            this.hierarchyQuery = null;
+        }
+        if (this.hierarchyQuery == null) {
+            this.hierarchyQuery = this.hierarchy.newQuery();
+        }
+
+        final ContractionHierarchy.Query query = this.hierarchyQuery;
+        final ResidualGraph residual = this.getResidualGraph();
+        int cost = query.search(start, end);
+        this.searches++;
+        this.settledNodes += query.getSettledNodeCount();
+        if (cost < 0) {
+            return null;
+        }
+
+        residual.refresh();
+        for (int k = 1; k < query.getPathLength(); k++) {
+            if (!residual.isLive(this.store.findEdge(query.getPathNode(k - 1), query.getPathNode(k)))) {
+                return null;
             }
-            backPointers.put(start, null);
-            q.offer(Tuple.of(neighbor, this.getCost(start, neighbor), start));
         }
 
-        Tuple<SensorNode, Integer, SensorNode> currPair;
-        SensorNode currNode;
-        SensorNode prevNode;
-        int currCost;
-        while (!q.isEmpty()) {
-            currPair = q.poll();
-            currNode = currPair.first();
-            currCost = currPair.second();
-            prevNode = currPair.third();
+        List<SensorNode> path = new ArrayList<>(query.getPathLength());
+        for (int k = 0; k < query.getPathLength(); k++) {
+            path.add(this.state.getNode(query.getPathNode(k)));
+        }
+        return path;
+    }
+
+    /*
+     * Dijkstra's algorithm with every Storage Node with space left as a target, until they can store the packets.
+     * Edges must carry at least one packet like in search(start, end, 1), so every path found can be used.
+     * The shortest-path trees of the Data Nodes do not check relays this way, and stopping early is cheaper.
+     */
+    private List<List<SensorNode>> searchStorage(int start, int packets) {
+        final NodeStore store = this.store;
+        final NetworkState state = this.state;
+        final int receivingCost = store.getReceivingCost();
+
+        List<List<SensorNode>> paths = new ArrayList<>();
+        if (packets <= 0) {
+            return paths;
+        }
 
-            if (backPointers.containsKey(currNode)) {
+        int[] dist = new int[store.size()];
+        int[] prev = new int[store.size()];
+        Arrays.fill(dist, Integer.MAX_VALUE);
+        Arrays.fill(prev, -1);
+        boolean[] settled = new boolean[store.size()];
+        int[] found = new int[Math.min(16, store.size())];
+        int foundCount = 0;
+
+        LongHeap heap = new LongHeap();
+        dist[start] = 0;
+        heap.push(LongHeap.pack(0, store.getUuid(start)));
+        this.searches++;
+
+        long top;
+        int curr;
+        int next;
+        int nextCost;
+        int spaceLeft;
+        int covered = 0;
+        while (!heap.isEmpty()) {
+            top = heap.pop();
+            curr = store.getIndexOfUuid(LongHeap.node(top));
+            if (settled[curr]) {
                 continue;
             }
+            settled[curr] = true;
+            this.settledNodes++;
 
-            if (!(prevNode.canTransmitTo(currNode, 1) && currNode.canReceiveFrom(prevNode, 1))) {
-                continue;
+            spaceLeft = state.getCapacity(curr) - state.getUsedSpace(curr);
+            if (curr != start && store.getType(curr) == NodeStore.STORAGE && spaceLeft > 0) {
+                if (foundCount == found.length) {
+                    found = Arrays.copyOf(found, foundCount * 2);
+                }
+                found[foundCount++] = curr;
+                covered += spaceLeft;
+                if (covered >= packets) {
+                    break;
+                }
             }
 
-            backPointers.put(currNode, prevNode);
-            for (SensorNode neighbor : graph.getOrDefault(currNode, Set.of())) {
-                q.offer(Tuple.of(neighbor, currCost + this.getCost(currNode, neighbor), currNode));
+            for (int e = store.getEdgeStart(curr); e < store.getEdgeEnd(curr); e++) {
+                next = store.getEdgeTarget(e);
+                if (settled[next] || store.getTransmissionCost(e) + (curr == start ? 0 : receivingCost) > state.getEnergy(curr)
+                        || receivingCost > state.getEnergy(next)) {
+                    continue;
+                }
+                nextCost = dist[curr] + store.getTransmissionCost(e) + receivingCost;
+                if (nextCost < dist[next]) {
+                    dist[next] = nextCost;
+                    prev[next] = curr;
+                    heap.push(LongHeap.pack(nextCost, store.getUuid(next)));
+                }
             }
+        }
 
-            if (currNode.equals(end)) {
-                break;
+        List<SensorNode> path;
+        for (int k = 0; k < foundCount; k++) {
+            path = new ArrayList<>();
+            for (int node = found[k]; node != -1; node = prev[node]) {
+                path.add(state.getNode(node));
             }
+            Collections.reverse(path);
+            paths.add(path);
         }
+        return paths;
+    }
+
+    /*
+     * Dijkstra's algorithm on the bottleneck instead of the sum: the width of a path is the fewest
+     * packets any of its nodes can afford (relays both receive and transmit), and the widest is settled first.
+     */
+    private List<SensorNode> searchWidest(int start, int end) {
+        final NodeStore store = this.store;
+        final NetworkState state = this.state;
+        final int receivingCost = store.getReceivingCost();
+
+        int[] width = new int[store.size()];
+        int[] prev = new int[store.size()];
+        Arrays.fill(prev, -1);
+        boolean[] settled = new boolean[store.size()];
+
+        /* The heap pops the smallest key first, so the key is how far a width is below the widest (ties are broken by uuid) */
+        LongHeap heap = new LongHeap();
+        width[start] = Integer.MAX_VALUE;
+        heap.push(LongHeap.pack(Integer.MAX_VALUE - width[start], store.getUuid(start)));
+        this.searches++;
+
+        long top;
+        int curr;
+        int next;
+        int nextWidth;
+        while (!heap.isEmpty()) {
+            top = heap.pop();
+            curr = store.getIndexOfUuid(LongHeap.node(top));
+            if (settled[curr]) {
+                continue;
+            }
+            settled[curr] = true;
+            this.settledNodes++;
+            if (curr == end) {
+                break;
+            }
 
-        LinkedList<SensorNode> deque = new LinkedList<>();
-        currNode = end;
-        while (currNode != null) {
-            deque.push(currNode);
-            currNode = backPointers.getOrDefault(currNode, null);
+            for (int e = store.getEdgeStart(curr); e < store.getEdgeEnd(curr); e++) {
+                next = store.getEdgeTarget(e);
+                if (settled[next]) {
+                    continue;
+                }
+                nextWidth = Math.min(width[curr], Math.min(
+                        state.getEnergy(curr) / (store.getTransmissionCost(e) + (curr == start ? 0 : receivingCost)),
+                        state.getEnergy(next) / receivingCost));
+                if (nextWidth > width[next]) {
+                    width[next] = nextWidth;
+                    prev[next] = curr;
+                    heap.push(LongHeap.pack(Integer.MAX_VALUE - nextWidth, store.getUuid(next)));
+                }
+            }
         }
 
-        return deque;
+        /* Unreachable targets give back a path of only the target */
+        List<SensorNode> path = new ArrayList<>();
+        for (int node = end; node != -1; node = prev[node]) {
+            path.add(state.getNode(node));
+        }
+        Collections.reverse(path);
+        return path;
     }
 
     private int getCost(SensorNode from, SensorNode to) {
@@ -624,23 +1138,27 @@ public class SensorNetwork implements Network {
     public void setOverflowPackets(int overflowPackets) {
         this.dataPacketCount = overflowPackets;
 
-        for (DataNode dn : this.dNodes) {
-            dn.setOverflowPackets(overflowPackets);
+        for (int index = 0; index < this.store.size(); index++) {
+            if (this.store.getType(index) == NodeStore.DATA) {
+                this.state.setOverflowPackets(index, overflowPackets);
+            }
         }
     }
 
     public void setStorageCapacity(int storageCapacity) {
         this.storageCapacity = storageCapacity;
 
-        for (StorageNode sn : this.sNodes) {
-            sn.setCapacity(storageCapacity);
+        for (int index = 0; index < this.store.size(); index++) {
+            if (this.store.getType(index) == NodeStore.STORAGE) {
+                this.state.setCapacity(index, storageCapacity);
+            }
         }
     }
 
     public void setBatteryCapacity(int batteryCapacity) {
         this.batteryCapacity = batteryCapacity;
-        for (SensorNode sn : this.nodes) {
-            sn.setBatteryCapacity(batteryCapacity);
+        for (int index = 0; index < this.store.size(); index++) {
+            this.state.setBatteryCapacity(index, batteryCapacity);
         }
     }
 
@@ -652,31 +1170,75 @@ public class SensorNetwork implements Network {
 
     @Override
     public boolean canSendPacketsAlong(List<SensorNode> path, int packets) {
-        if (path.size() < 2) {
-            return false;
+        PacketTransfer transfer = this.getTransfer();
+        transfer.add(path, packets);
+        return transfer.isFeasible();
+    }
+
+    @Override
+    public boolean canSendPacketsAlong(Path path, int packets) {
+        PacketTransfer transfer = this.getTransfer();
+        transfer.add(path, packets);
+        return transfer.isFeasible();
+    }
+
+    @Override
+    public boolean canSendPacketsAlong(List<Path> paths, int[] packets) {
+        if (paths.size() != packets.length) {
+            throw new IllegalArgumentException("Every path needs a number of packets!");
         }
+        PacketTransfer transfer = this.getTransfer();
+        for (int i = 0; i < paths.size(); i++) {
+            transfer.add(paths.get(i), packets[i]);
+        }
+        return transfer.isFeasible();
+    }
 
-        int[] costDp = new int[path.size()];
-        for (int index = 0; index < path.size(); index++) {
-            costDp[index] = path.get(index).getEnergy();
+    /* The transfer engine of this network, cleared of any routes from before */
+    private PacketTransfer getTransfer() {
+        if (this.transfer == null) {
+            this.transfer = new PacketTransfer(this.state);
+        }
+        this.transfer.clear();
+        return this.transfer;
+    }
+
+    @Override
+    public Path toPath(List<SensorNode> path) {
+        int[] nodes = new int[path.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = path.get(i).getIndex();
+        }
+        return new Path(this.store, nodes);
+    }
+
+    @Override
+    public List<SensorNode> toList(Path path) {
+        List<SensorNode> nodes = new ArrayList<>(path.size());
+        for (int i = 0; i < path.size(); i++) {
+            nodes.add(this.state.getNode(path.getNode(i)));
         }
+        return nodes;
+    }
 
-        SensorNode from;
-        SensorNode to;
-        for (int index = 0; index < path.size() - 1; index++) {
-            from = path.get(index);
-            to = path.get(index + 1);
-            costDp[index] -= from.calculateTransmissionCost(to) * packets;
-            costDp[index + 1] -= to.calculateReceivingCost() * packets;
+    @Override
+    public int calculateMaxPacketsAlong(List<SensorNode> path) {
+        if (path.size() < 2 || !(path.getLast() instanceof StorageNode sn)) {
+            return 0;
         }
 
+        final NodeStore store = this.store;
+        final int receivingCost = store.getReceivingCost();
+        int maxPackets = sn.getSpaceLeft();
+        int cost;
         for (int index = 0; index < path.size(); index++) {
-            if (costDp[index] < 0) {
-                return false;
+            cost = index > 0 ? receivingCost : 0;
+            if (index < path.size() - 1) {
+                cost += store.transmissionCost(path.get(index).getIndex(), path.get(index + 1).getIndex());
             }
+            maxPackets = Math.min(maxPackets, this.state.getEnergy(path.get(index).getIndex()) / cost);
         }
-
-        return path.getLast().canStoreFrom(path.get(path.size() - 2), packets);
+        return Math.max(maxPackets, 0);
     }
 
     @Override
@@ -694,45 +1256,106 @@ public class SensorNetwork implements Network {
 
     @Override
     public void sendPacketsAlong(List<SensorNode> path, int packets) {
-        if (!canSendPacketsAlong(path, packets)) {
+        if (!this.canSendPacketsAlong(path, packets)) {
             throw new IllegalArgumentException(
                     String.format("Cannot send %d packets along path %s\n", packets, path));
         }
+        this.transfer.apply();
+    }
 
-        SensorNode tmpFrom;
-        SensorNode tmpTo;
-        for (int index = 0; index < path.size() - 1; index++) {
-            tmpFrom = path.get(index);
-            tmpTo = path.get(index + 1);
+    @Override
+    public void sendPacketsAlong(Path path, int packets) {
+        if (!this.canSendPacketsAlong(path, packets)) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot send %d packets along path %s\n", packets, this.toList(path)));
+        }
+        this.transfer.apply();
+    }
 
-            if (index == 0) {
-                tmpFrom.offloadTo(tmpTo, packets);
-            } else {
-                tmpFrom.transmitTo(tmpTo, packets);
-            }
+    @Override
+    public void sendPacketsAlong(List<Path> paths, int[] packets) {
+        if (!this.canSendPacketsAlong(paths, packets)) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot send %s packets along the %d paths\n", Arrays.toString(packets), paths.size()));
+        }
+        this.transfer.apply();
+    }
 
-            if (index == path.size() - 2) {
-                tmpTo.storeFrom(tmpFrom, packets);
-            } else {
-                tmpTo.receiveFrom(tmpFrom, packets);
-            }
+    /**
+     * Returns the edges that can still carry a packet with the energy left, which the min-cost path searches
+     * use (and which tells how much of the network is left).
+     *
+     * @return the residual graph of this network
+     */
+    public ResidualGraph getResidualGraph() {
+        if (this.residual == null) {
+            this.residual = new ResidualGraph(this.store, this.state);
         }
+        return this.residual;
+    }
+
+    public RoutingMode getRoutingMode() {
+        return this.routingMode;
+    }
+
+    /**
+     * Chooses how min-cost paths are searched for (Dijkstra's algorithm by default).
+     *
+     * @param routingMode the search to use
+     */
+    public void setRoutingMode(RoutingMode routingMode) {
+        this.routingMode = Objects.requireNonNull(routingMode);
+    }
+
+    /**
+     * Returns the number of nodes settled by every min-cost path search since the last
+     * {@link #resetSearchStatistics()}, e.g. to compare the routing modes.
+     *
+     * @return the total number of settled nodes
+     */
+    public long getSettledNodeCount() {
+        return this.settledNodes;
+    }
+
+    public int getSearchCount() {
+        return this.searches;
+    }
+
+    /**
+     * Returns the number of contraction hierarchy searches whose path some node could not afford,
+     * which were searched for again with Dijkstra's algorithm.
+     *
+     * @return the number of fallback searches
+     */
+    public int getFallbackCount() {
+        return this.fallbacks;
+    }
+
+    public void resetSearchStatistics() {
+        this.settledNodes = 0;
+        this.searches = 0;
+        this.fallbacks = 0;
     }
 
     @Override
     public void resetPackets() {
-        for (SensorNode node : this.nodes) {
-            node.resetPackets();
+        for (int index = 0; index < this.store.size(); index++) {
+            this.state.resetPackets(index);
         }
     }
 
     @Override
     public void resetEnergy() {
-        for (SensorNode node : this.nodes) {
-            node.resetEnergy();
+        for (int index = 0; index < this.store.size(); index++) {
+            this.state.resetEnergy(index);
         }
     }
 
+    @Override
+    public void resetState() {
+        this.state.reset();
+    }
+
     @Override
     public int calculateProfitOf(DataNode from, StorageNode to) {
         int cost = this.calculateMinCost(from, to);
@@ -740,7 +1363,7 @@ public class SensorNetwork implements Network {
     }
 
     public SensorNode getSensorNodeByUuid(int uuid) {
-        return this.nodes.get(uuid - 1);
+        return this.state.getNode(this.store.getIndexOfUuid(uuid));
     }
 
     @Override
@@ -766,4 +1389,79 @@ public class SensorNetwork implements Network {
         }
         return this.tNodes.get(id - 1);
     }
+
+    /**
+     * A read-only list of the Sensor Node views of some indices of a Network State
+     * (or of every index when no indices are given).
+     */
+    private static class NodeList<T extends SensorNode> extends AbstractList<T> implements RandomAccess {
+        private final NetworkState state;
+        private final int[] indices;
+
+        NodeList(NetworkState state, int[] indices) {
+            this.state = state;
+            this.indices = indices;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int i) {
+            if (this.indices == null) {
+                return (T) this.state.getNode(i);
+            }
+            return (T) this.state.getNode(this.indices[i]);
+        }
+
+        @Override
+        public int size() {
+            return this.indices == null ? this.state.size() : this.indices.length;
+        }
+    }
+
+    /**
+     * A read-only set of the neighbors of one node, backed by the adjacency of a Node Store.
+     */
+    private static class NeighborSet extends AbstractSet<SensorNode> {
+        private final NetworkState state;
+        private final NodeStore store;
+        private final int index;
+
+        NeighborSet(NetworkState state, int index) {
+            this.state = state;
+            this.store = state.getNodeStore();
+            this.index = index;
+        }
+
+        @Override
+        public Iterator<SensorNode> iterator() {
+            return new Iterator<>() {
+                private int edge = NeighborSet.this.store.getEdgeStart(NeighborSet.this.index);
+
+                @Override
+                public boolean hasNext() {
+                    return this.edge < NeighborSet.this.store.getEdgeEnd(NeighborSet.this.index);
+                }
+
+                @Override
+                public SensorNode next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return NeighborSet.this.state.getNode(NeighborSet.this.store.getEdgeTarget(this.edge++));
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof SensorNode node && node.getIndex() < this.store.size()
+                    && this.state.getNode(node.getIndex()).equals(node)
+                    && this.store.findEdge(this.index, node.getIndex()) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return this.store.getEdgeEnd(this.index) - this.store.getEdgeStart(this.index);
+        }
+    }
 }
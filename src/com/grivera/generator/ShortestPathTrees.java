@@ -0,0 +1,281 @@
+package com.grivera.generator;
+
+import com.grivera.generator.sensors.NetworkState;
+import com.grivera.generator.sensors.NodeStore;
+import com.grivera.util.LongHeap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The shortest-path trees of Dijkstra's algorithm from some start nodes (the Data Nodes), kept up-to-date
+ * as the nodes spend their energy.
+ *
+ * <p>
+ * Spending energy only removes edges: once a node cannot transmit a packet over an edge, or cannot receive
+ * one, its edges leave the graph. Only the subtrees hanging off removed tree edges lose their paths, so only
+ * they are searched again (from the rest of the tree) before the next query. Any gain of energy (a reset,
+ * a restore or a new battery capacity) rebuilds the trees from scratch instead.
+ * </p>
+ * <p>
+ * Ties are broken like a fresh search breaks them (the parent of a node is the one settled first, by cost
+ * then uuid), so a repaired tree gives the same paths as searching again.
+ * </p>
+ * <p>
+ * The trees only serve the searches without packets that start at a Data Node in Dijkstra's mode (e.g. the
+ * cost lookups of the priority greedy, flow and ILP models). They do not serve the nearest Storage Node
+ * searches of the multipath greedy: those let a relay carry a packet only if it can both receive and transmit
+ * it, while a tree edge only needs one of the two, and they stop at the first few Storage Nodes.
+ * </p>
+ */
+final class ShortestPathTrees implements NetworkState.EnergyListener {
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final NodeStore store;
+    private final ResidualGraph residual;
+    private final int receivingCost;
+
+    /* A node with at least this much energy can use all of its edges */
+    private final int[] usableEnergy;
+
+    private final Tree[] byStart;
+    private final List<Tree> trees = new ArrayList<>();
+    private long settledNodes;
+
+    /* Scratch space of the repairs */
+    private final int[] affected;
+    private int affectedEpoch;
+    private final int[] queue;
+    private final LongHeap heap = new LongHeap();
+
+    ShortestPathTrees(NodeStore store, NetworkState state, ResidualGraph residual) {
+        this.store = store;
+        this.residual = residual;
+        this.receivingCost = store.getReceivingCost();
+
+        final int n = store.size();
+        this.usableEnergy = new int[n];
+        for (int node = 0; node < n; node++) {
+            this.usableEnergy[node] = this.receivingCost;
+            for (int e = store.getEdgeStart(node); e < store.getEdgeEnd(node); e++) {
+                this.usableEnergy[node] = Math.max(this.usableEnergy[node], store.getTransmissionCost(e));
+            }
+        }
+        this.byStart = new Tree[n];
+        this.affected = new int[n];
+        this.queue = new int[n];
+        state.addEnergyListener(this);
+    }
+
+    private static final class Tree {
+        private final int start;
+        private final int[] dist;
+        private final int[] parent;
+        private boolean stale = true;
+
+        /* Nodes whose edge from their parent was removed */
+        private int[] cuts = new int[16];
+        private int cutCount;
+
+        Tree(int start, int size) {
+            this.start = start;
+            this.dist = new int[size];
+            this.parent = new int[size];
+        }
+
+        void cut(int node) {
+            if (this.cutCount == this.cuts.length) {
+                this.cuts = Arrays.copyOf(this.cuts, this.cutCount * 2);
+            }
+            this.cuts[this.cutCount++] = node;
+        }
+    }
+
+    /**
+     * Returns the up-to-date parents in the shortest-path tree of a start node.
+     *
+     * @param start the index of the start node
+     * @return the index of the parent of every node (-1 for the start and unreachable nodes)
+     */
+    int[] getParents(int start) {
+        Tree tree = this.byStart[start];
+        if (tree == null) {
+            tree = new Tree(start, this.store.size());
+            this.byStart[start] = tree;
+            this.trees.add(tree);
+        }
+        this.residual.refresh();
+        if (tree.stale) {
+            this.build(tree);
+        } else if (tree.cutCount > 0) {
+            this.repair(tree);
+        }
+        return tree.parent;
+    }
+
+    /**
+     * Returns the nodes settled to build and repair the trees since the last call.
+     *
+     * @return the number of settled nodes
+     */
+    long takeSettledNodeCount() {
+        long settled = this.settledNodes;
+        this.settledNodes = 0;
+        return settled;
+    }
+
+    @Override
+    public void energyChanged(int index, int oldEnergy, int newEnergy) {
+        if (newEnergy > oldEnergy) {
+            this.energiesReset();
+            return;
+        }
+        if (newEnergy >= this.usableEnergy[index] || newEnergy == oldEnergy) {
+            return;
+        }
+
+        final NodeStore store = this.store;
+        int child;
+        for (Tree tree : this.trees) {
+            if (tree.stale || tree.dist[index] == INFINITY) {
+                continue;
+            }
+            if (index != tree.start && newEnergy < this.receivingCost) {
+                tree.cut(index);
+                continue;
+            }
+            for (int e = store.getEdgeStart(index); e < store.getEdgeEnd(index); e++) {
+                child = store.getEdgeTarget(e);
+                if (tree.parent[child] == index && store.getTransmissionCost(e) > newEnergy) {
+                    tree.cut(child);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void energiesReset() {
+        for (Tree tree : this.trees) {
+            tree.stale = true;
+            tree.cutCount = 0;
+        }
+    }
+
+    private void build(Tree tree) {
+        Arrays.fill(tree.dist, INFINITY);
+        Arrays.fill(tree.parent, -1);
+        tree.dist[tree.start] = 0;
+        this.heap.clear();
+        this.heap.push(LongHeap.pack(0, this.store.getUuid(tree.start)));
+        this.settle(tree, null);
+        tree.stale = false;
+        tree.cutCount = 0;
+    }
+
+    /*
+     * Clears the subtrees below the cuts, seeds them from their neighbors outside, and settles them again.
+     * Nodes outside keep their costs and parents, since removing edges cannot make their paths cheaper.
+     */
+    private void repair(Tree tree) {
+        final NodeStore store = this.store;
+        final int[] affected = this.affected;
+        final int epoch = ++this.affectedEpoch;
+
+        int head = 0, tail = 0;
+        int node, next;
+        for (int k = 0; k < tree.cutCount; k++) {
+            node = tree.cuts[k];
+            if (affected[node] != epoch) {
+                affected[node] = epoch;
+                this.queue[tail++] = node;
+            }
+        }
+        tree.cutCount = 0;
+        while (head < tail) {
+            node = this.queue[head++];
+            for (int e = store.getEdgeStart(node); e < store.getEdgeEnd(node); e++) {
+                next = store.getEdgeTarget(e);
+                if (tree.parent[next] == node && affected[next] != epoch) {
+                    affected[next] = epoch;
+                    this.queue[tail++] = next;
+                }
+            }
+        }
+        for (int k = 0; k < tail; k++) {
+            tree.dist[this.queue[k]] = INFINITY;
+            tree.parent[this.queue[k]] = -1;
+        }
+
+        this.heap.clear();
+        int best, cost;
+        for (int k = 0; k < tail; k++) {
+            node = this.queue[k];
+            best = INFINITY;
+            for (int e = store.getEdgeStart(node); e < store.getEdgeEnd(node); e++) {
+                next = store.getEdgeTarget(e);
+                if (affected[next] == epoch || tree.dist[next] == INFINITY || !this.residual.isLive(this.residual.reverseOf(e))) {
+                    continue;
+                }
+                cost = tree.dist[next] + store.getTransmissionCost(e) + this.receivingCost;
+                best = Math.min(best, cost);
+            }
+            if (best < INFINITY) {
+                tree.dist[node] = best;
+                this.heap.push(LongHeap.pack(best, store.getUuid(node)));
+            }
+        }
+        this.settle(tree, affected);
+
+        /* Pick the parents a fresh search would have picked: the cheapest, then lowest uuid, of the tied neighbors */
+        int parent;
+        for (int k = 0; k < tail; k++) {
+            node = this.queue[k];
+            if (tree.dist[node] == INFINITY) {
+                continue;
+            }
+            parent = -1;
+            for (int e = store.getEdgeStart(node); e < store.getEdgeEnd(node); e++) {
+                next = store.getEdgeTarget(e);
+                if (tree.dist[next] == INFINITY || !this.residual.isLive(this.residual.reverseOf(e))
+                        || tree.dist[next] + store.getTransmissionCost(e) + this.receivingCost != tree.dist[node]) {
+                    continue;
+                }
+                if (parent < 0 || tree.dist[next] < tree.dist[parent]
+                        || (tree.dist[next] == tree.dist[parent] && store.getUuid(next) < store.getUuid(parent))) {
+                    parent = next;
+                }
+            }
+            tree.parent[node] = parent;
+        }
+    }
+
+    /* Runs Dijkstra's algorithm from the heap, only into the affected nodes if given (edges are symmetric) */
+    private void settle(Tree tree, int[] affected) {
+        final NodeStore store = this.store;
+        final int epoch = this.affectedEpoch;
+        long top;
+        int curr, next, nextCost;
+        while (!this.heap.isEmpty()) {
+            top = this.heap.pop();
+            curr = store.getIndexOfUuid(LongHeap.node(top));
+            if (LongHeap.cost(top) > tree.dist[curr]) {
+                continue;
+            }
+            this.settledNodes++;
+            for (int e = store.getEdgeStart(curr); e < store.getEdgeEnd(curr); e++) {
+                next = store.getEdgeTarget(e);
+                if ((affected != null && affected[next] != epoch) || !this.residual.isLive(e)) {
+                    continue;
+                }
+                nextCost = tree.dist[curr] + store.getTransmissionCost(e) + this.receivingCost;
+                if (nextCost < tree.dist[next]) {
+                    tree.dist[next] = nextCost;
+                    tree.parent[next] = curr;
+                    this.heap.push(LongHeap.pack(nextCost, store.getUuid(next)));
+                }
+            }
+        }
+    }
+}
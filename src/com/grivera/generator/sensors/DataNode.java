@@ -7,51 +7,41 @@ package com.grivera.generator.sensors;
  */
 public class DataNode extends SensorNode {
 
-    private static int idCounter = 1;
-    private int id;
-    private int overflowPackets;
-    private int overflowPacketsValue;
-    private int packetsLeft;
-
-    public DataNode(double x, double y, double tr, int power, int overflowPackets, int overflowPacketsValue) {
-        super(x, y, tr, String.format("DN%02d", idCounter), power);
-        this.id = idCounter++;
-        this.setOverflowPackets(overflowPackets);
-        this.overflowPacketsValue = overflowPacketsValue;
+    DataNode(NetworkState state, int index) {
+        super(state, index);
     }
 
     public void setOverflowPackets(int overflowPackets) {
-        this.overflowPackets = overflowPackets;
-        this.packetsLeft = overflowPackets;
+        this.state.setOverflowPackets(this.index, overflowPackets);
     }
 
     public int getOverflowPackets() {
-        return this.overflowPackets;
+        return this.state.overflowPackets[this.index];
     }
 
     public boolean isEmpty() {
-        return this.packetsLeft < 1;
+        return this.getPacketsLeft() < 1;
     }
 
     @Override
     public boolean canOffloadTo(SensorNode receiver, int deltaPackets) {
-        return super.canTransmitTo(receiver, deltaPackets) && this.packetsLeft - deltaPackets >= 0;
+        return super.canTransmitTo(receiver, deltaPackets) && this.getPacketsLeft() - deltaPackets >= 0;
     }
 
     @Override
     public void offloadTo(SensorNode receiver, int packets) {
         if (!this.canOffloadTo(receiver, packets)) {
-            throw new IllegalArgumentException(String.format("%s with %d packets cannot offload %d packets", this.getName(), this.packetsLeft, packets));
+            throw new IllegalArgumentException(String.format("%s with %d packets cannot offload %d packets", this.getName(), this.getPacketsLeft(), packets));
         }
         super.transmitTo(receiver, packets);
-        this.packetsLeft -= packets;
+        this.state.setPacketsLeft(this.index, this.getPacketsLeft() - packets);
     }
 
     public void discardPackets(int packets) {
-        if (packets > this.packetsLeft) {
-            throw new IllegalArgumentException(String.format("%s with %d packets cannot discard %d packets", this.getName(), this.packetsLeft, packets));
+        if (packets > this.getPacketsLeft()) {
+            throw new IllegalArgumentException(String.format("%s with %d packets cannot discard %d packets", this.getName(), this.getPacketsLeft(), packets));
         }
-        this.overflowPackets -= packets;
+        this.state.discardPackets(this.index, packets);
     }
 
     @Override
@@ -66,24 +56,20 @@ public class DataNode extends SensorNode {
 
     @Override
     public void resetPackets() {
-        this.packetsLeft = this.overflowPackets;
+        this.state.resetPackets(this.index);
     }
 
     @Override
-    public int getId() {
-        return this.id;
+    protected String getNamePrefix() {
+        return "DN";
     }
 
     public int getPacketsLeft() {
-        return this.packetsLeft;
+        return this.state.packetsLeft[this.index];
     }
 
     public int getOverflowPacketValue() {
-        return this.overflowPacketsValue;
-    }
-
-    public static void resetCounter() {
-        idCounter = 1;
+        return this.store.value[this.index];
     }
 
 }
@@ -0,0 +1,81 @@
+package com.grivera.generator.sensors;
+
+/**
+ * Tests distances and computes transmission costs between one node and many others at once,
+ * reading the positions straight from the columns of a {@link NodeStore}.
+ *
+ * <p>
+ * {@link #get()} uses plain loops unless the optional Vector API (SIMD) kernel from {@code src-vector}
+ * is on the class path and the {@code jdk.incubator.vector} module is added. Both give exactly the same results as
+ * {@link NodeStore#distance(int, int)} and {@link NodeStore#transmissionCost(int, int)}.
+ * </p>
+ */
+public interface DistanceKernel {
+
+    /**
+     * Finds the candidates that are within range of a node.
+     *
+     * @param x          the x coordinates of the nodes
+     * @param y          the y coordinates of the nodes
+     * @param from       the node to measure from
+     * @param candidates the nodes to test
+     * @param count      the number of candidates
+     * @param range      the (inclusive) range
+     * @param hits       receives the candidates in range, in their order (at least {@code count} long)
+     * @return the number of candidates in range
+     */
+    int withinRange(double[] x, double[] y, int from, int[] candidates, int count, double range, int[] hits);
+
+    /**
+     * Computes the cost for a node to transmit one packet to each of its neighbors.
+     *
+     * @param x             the x coordinates of the nodes
+     * @param y             the y coordinates of the nodes
+     * @param from          the transmitting node
+     * @param targets       the receiving nodes
+     * @param start         the first receiver (and cost) to compute
+     * @param end           the end (exclusive) of the receivers
+     * @param bitsPerPacket the size of a packet
+     * @param costs         receives the cost to every receiver, at the same positions as the receivers
+     */
+    void transmissionCosts(double[] x, double[] y, int from, int[] targets, int start, int end, int bitsPerPacket, int[] costs);
+
+    /**
+     * Returns the fastest kernel available. Set the system property {@code grivera.kernel} to
+     * {@code scalar} to always use the plain loops.
+     *
+     * @return a kernel
+     */
+    static DistanceKernel get() {
+        return Holder.KERNEL;
+    }
+
+    /**
+     * Returns the kernel with plain loops, e.g. to compare against {@link #get()}.
+     *
+     * @return the scalar kernel
+     */
+    static DistanceKernel scalar() {
+        return new ScalarDistanceKernel();
+    }
+
+    final class Holder {
+        private static final DistanceKernel KERNEL = load();
+
+        private Holder() {
+        }
+
+        private static DistanceKernel load() {
+            if ("scalar".equalsIgnoreCase(System.getProperty("grivera.kernel"))) {
+                return new ScalarDistanceKernel();
+            }
+            try {
+                /* Only on the class path when src-vector is built, and loadable with --add-modules jdk.incubator.vector */
+                return (DistanceKernel) Class.forName("com.grivera.generator.sensors.VectorDistanceKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return new ScalarDistanceKernel();
+            }
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.grivera.generator.sensors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Holds the mutable part of a network over a {@link NodeStore}: the battery capacity and energy left
+ * in every node, the packets left in every Data Node and the space used in every Storage Node.
+ *
+ * <p>
+ * The state supports three cheap operations on top of plain reads and writes:
+ * </p>
+ * <ul>
+ *     <li>{@link #capture()} marks the current state; every node is journaled (once) the first time
+ *     it is written after the mark.</li>
+ *     <li>{@link #restore(Snapshot)} undoes the journal back to a mark, in O(nodes touched since).</li>
+ *     <li>{@link #fork()} copies the state in O(1); the arrays are shared until either side writes.</li>
+ * </ul>
+ * <p>
+ * The state also remembers which nodes were touched since its last reset, so that resetting a
+ * network only visits those nodes. Snapshots only cover the energy and packets, not the battery
+ * capacities, overflow packets and storage capacities.
+ * </p>
+ * <p>
+ * A state is not thread-safe, but a fork can be used by another thread while this state is not written to.
+ * </p>
+ * <p>
+ * {@link EnergyListener}s are told about every change of energy, e.g. to keep cached routes up-to-date.
+ * Forks and copies start without listeners.
+ * </p>
+ */
+public final class NetworkState {
+
+    private final NodeStore store;
+    private int size;
+    private boolean shared;
+    int[] battery;
+    int[] overflowPackets;
+    int[] capacity;
+    int[] energy;
+    int[] packetsLeft;
+    int[] usedSpace;
+    private SensorNode[] views;
+
+    /* Nodes written since the last reset */
+    private boolean[] dirty;
+    private int[] dirtyNodes;
+    private int dirtyCount;
+
+    /* Undo journal, one entry per node per capture */
+    private final List<Snapshot> liveSnapshots = new ArrayList<>();
+
+    private EnergyListener[] listeners = new EnergyListener[0];
+    private int epoch;
+    private int[] journaledEpoch;
+    private int[] journalNode;
+    private int[] journalEnergy;
+    private int[] journalPacketsLeft;
+    private int[] journalUsedSpace;
+    private int journalSize;
+
+    NetworkState(NodeStore store, int capacity) {
+        this.store = store;
+        this.battery = new int[capacity];
+        this.overflowPackets = new int[capacity];
+        this.capacity = new int[capacity];
+        this.energy = new int[capacity];
+        this.packetsLeft = new int[capacity];
+        this.usedSpace = new int[capacity];
+        this.views = new SensorNode[capacity];
+        this.dirty = new boolean[capacity];
+        this.dirtyNodes = new int[capacity];
+    }
+
+    private NetworkState(NetworkState parent, NodeStore store) {
+        this.store = store;
+        this.size = parent.size;
+        this.shared = true;
+        this.battery = parent.battery;
+        this.overflowPackets = parent.overflowPackets;
+        this.capacity = parent.capacity;
+        this.energy = parent.energy;
+        this.packetsLeft = parent.packetsLeft;
+        this.usedSpace = parent.usedSpace;
+        this.views = new SensorNode[parent.views.length];
+        this.dirty = parent.dirty;
+        this.dirtyNodes = parent.dirtyNodes;
+        this.dirtyCount = parent.dirtyCount;
+    }
+
+    /**
+     * Creates an independent copy of this state. Both states share their arrays until one of them
+     * is written to, so forking is O(1). Snapshots and Sensor Node views are not carried over to the fork.
+     *
+     * @return a copy of this state
+     */
+    public NetworkState fork() {
+        this.shared = true;
+        return new NetworkState(this, this.store);
+    }
+
+    /* Forks this state for another store over the same nodes (see NodeStore#withEdges) */
+    NetworkState forkFor(NodeStore store) {
+        this.shared = true;
+        return new NetworkState(this, store);
+    }
+
+    /* Copies this state for a reordered store (see NodeStore#reordered) */
+    NetworkState permutedFor(NodeStore store, int[] order) {
+        NetworkState permuted = new NetworkState(store, order.length);
+        permuted.size = order.length;
+        int old;
+        for (int index = 0; index < order.length; index++) {
+            old = order[index];
+            permuted.battery[index] = this.battery[old];
+            permuted.overflowPackets[index] = this.overflowPackets[old];
+            permuted.capacity[index] = this.capacity[old];
+            permuted.energy[index] = this.energy[old];
+            permuted.packetsLeft[index] = this.packetsLeft[old];
+            permuted.usedSpace[index] = this.usedSpace[old];
+            if (this.dirty[old]) {
+                permuted.markTouched(index);
+            }
+        }
+        return permuted;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public NodeStore getNodeStore() {
+        return this.store;
+    }
+
+    /**
+     * Returns the Sensor Node view of the node at the given index, creating it if needed.
+     *
+     * @param index the index of the node
+     * @return the Sensor Node at the given index
+     */
+    public SensorNode getNode(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException(String.format("Invalid node index %d", index));
+        }
+        SensorNode node = this.views[index];
+        if (node == null) {
+            node = switch (this.store.type[index]) {
+                case NodeStore.DATA -> new DataNode(this, index);
+                case NodeStore.STORAGE -> new StorageNode(this, index);
+                default -> new TransitionNode(this, index);
+            };
+            this.views[index] = node;
+        }
+        return node;
+    }
+
+    public int getBatteryCapacity(int index) {
+        return this.battery[index];
+    }
+
+    public void setBatteryCapacity(int index, int batteryCapacity) {
+        this.ensureOwned();
+        this.battery[index] = batteryCapacity;
+        this.setEnergy(index, batteryCapacity);
+    }
+
+    public int getOverflowPackets(int index) {
+        return this.overflowPackets[index];
+    }
+
+    public void setOverflowPackets(int index, int overflowPackets) {
+        this.ensureOwned();
+        this.overflowPackets[index] = overflowPackets;
+        this.setPacketsLeft(index, overflowPackets);
+    }
+
+    /**
+     * Drops packets from a Data Node for good (unlike {@link #setPacketsLeft(int, int)}).
+     *
+     * @param index   the index of the Data Node
+     * @param packets the number of packets to drop
+     */
+    public void discardPackets(int index, int packets) {
+        this.beforeWrite(index);
+        this.overflowPackets[index] -= packets;
+    }
+
+    public int getCapacity(int index) {
+        return this.capacity[index];
+    }
+
+    public void setCapacity(int index, int capacity) {
+        this.ensureOwned();
+        this.capacity[index] = capacity;
+        this.setUsedSpace(index, 0);
+    }
+
+    public void resetEnergy(int index) {
+        this.setEnergy(index, this.battery[index]);
+    }
+
+    public void resetPackets(int index) {
+        this.setPacketsLeft(index, this.overflowPackets[index]);
+        this.setUsedSpace(index, 0);
+    }
+
+    public int getEnergy(int index) {
+        return this.energy[index];
+    }
+
+    public int getPacketsLeft(int index) {
+        return this.packetsLeft[index];
+    }
+
+    public int getUsedSpace(int index) {
+        return this.usedSpace[index];
+    }
+
+    public void setEnergy(int index, int energy) {
+        this.beforeWrite(index);
+        int oldEnergy = this.energy[index];
+        this.energy[index] = energy;
+        for (EnergyListener listener : this.listeners) {
+            listener.energyChanged(index, oldEnergy, energy);
+        }
+    }
+
+    public void addEnergyListener(EnergyListener listener) {
+        this.listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        this.listeners[this.listeners.length - 1] = Objects.requireNonNull(listener);
+    }
+
+    public void removeEnergyListener(EnergyListener listener) {
+        for (int i = 0; i < this.listeners.length; i++) {
+            if (this.listeners[i] == listener) {
+                EnergyListener[] listeners = new EnergyListener[this.listeners.length - 1];
+                System.arraycopy(this.listeners, 0, listeners, 0, i);
+                System.arraycopy(this.listeners, i + 1, listeners, i, listeners.length - i);
+                this.listeners = listeners;
+                return;
+            }
+        }
+    }
+
+    private void notifyEnergiesReset() {
+        for (EnergyListener listener : this.listeners) {
+            listener.energiesReset();
+        }
+    }
+
+    public void setPacketsLeft(int index, int packetsLeft) {
+        this.beforeWrite(index);
+        this.packetsLeft[index] = packetsLeft;
+    }
+
+    public void setUsedSpace(int index, int usedSpace) {
+        this.beforeWrite(index);
+        this.usedSpace[index] = usedSpace;
+    }
+
+    /**
+     * Returns the number of nodes that were written to since the last reset.
+     *
+     * @return the number of touched nodes
+     */
+    public int getTouchedCount() {
+        return this.dirtyCount;
+    }
+
+    /**
+     * Marks the current state so that it can later be restored with {@link #restore(Snapshot)}.
+     * Call {@link #release(Snapshot)} once the snapshot is no longer needed to stop journaling.
+     *
+     * @return a snapshot of the current state
+     */
+    public Snapshot capture() {
+        if (this.journaledEpoch == null) {
+            this.journaledEpoch = new int[this.energy.length];
+            this.journalNode = new int[16];
+            this.journalEnergy = new int[16];
+            this.journalPacketsLeft = new int[16];
+            this.journalUsedSpace = new int[16];
+        }
+        this.epoch++;
+        Snapshot snapshot = new Snapshot(this, this.journalSize);
+        this.liveSnapshots.add(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Restores the state to the given snapshot. Snapshots captured after it can no longer be restored.
+     *
+     * @param snapshot a snapshot captured from this state
+     */
+    public void restore(Snapshot snapshot) {
+        if (snapshot.state != this) {
+            throw new IllegalArgumentException("The snapshot was captured from a different network state!");
+        }
+        if (snapshot.released) {
+            throw new IllegalStateException("The snapshot can no longer be restored!");
+        }
+        this.ensureOwned();
+
+        int node;
+        for (int entry = this.journalSize - 1; entry >= snapshot.position; entry--) {
+            node = this.journalNode[entry];
+            this.energy[node] = this.journalEnergy[entry];
+            this.packetsLeft[node] = this.journalPacketsLeft[entry];
+            this.usedSpace[node] = this.journalUsedSpace[entry];
+            this.markTouched(node);
+        }
+        if (this.journalSize > snapshot.position) {
+            this.notifyEnergiesReset();
+        }
+        this.journalSize = snapshot.position;
+
+        /* Snapshots captured after this one point past the end of the journal */
+        Snapshot later;
+        for (int i = this.liveSnapshots.size() - 1; i >= 0 && (later = this.liveSnapshots.get(i)) != snapshot; i--) {
+            later.released = true;
+            this.liveSnapshots.remove(i);
+        }
+
+        /* Journal writes after this point against the restored snapshot again */
+        this.epoch++;
+    }
+
+    /**
+     * Stops journaling for the given snapshot. Once no snapshot is live, writes are no longer journaled.
+     *
+     * @param snapshot a snapshot captured from this state
+     */
+    public void release(Snapshot snapshot) {
+        if (snapshot.state != this || snapshot.released) {
+            return;
+        }
+        snapshot.released = true;
+        this.liveSnapshots.remove(snapshot);
+        if (this.liveSnapshots.isEmpty()) {
+            this.journalSize = 0;
+        }
+    }
+
+    /**
+     * Resets every node touched since the last reset to its initial energy and packets.
+     */
+    public void reset() {
+        this.ensureOwned();
+        if (this.dirtyCount > 0) {
+            this.notifyEnergiesReset();
+        }
+        int node;
+        while (this.dirtyCount > 0) {
+            node = this.dirtyNodes[this.dirtyCount - 1];
+            this.journal(node);
+            this.energy[node] = this.battery[node];
+            this.packetsLeft[node] = this.overflowPackets[node];
+            this.usedSpace[node] = 0;
+            this.dirty[node] = false;
+            this.dirtyCount--;
+        }
+    }
+
+    void grow(int capacity) {
+        this.ensureOwned();
+        this.battery = Arrays.copyOf(this.battery, capacity);
+        this.overflowPackets = Arrays.copyOf(this.overflowPackets, capacity);
+        this.capacity = Arrays.copyOf(this.capacity, capacity);
+        this.views = Arrays.copyOf(this.views, capacity);
+        this.energy = Arrays.copyOf(this.energy, capacity);
+        this.packetsLeft = Arrays.copyOf(this.packetsLeft, capacity);
+        this.usedSpace = Arrays.copyOf(this.usedSpace, capacity);
+        this.dirty = Arrays.copyOf(this.dirty, capacity);
+        this.dirtyNodes = Arrays.copyOf(this.dirtyNodes, capacity);
+        if (this.journaledEpoch != null) {
+            this.journaledEpoch = Arrays.copyOf(this.journaledEpoch, capacity);
+        }
+    }
+
+    void add(int index, int battery, int overflowPackets, int capacity) {
+        this.size = Math.max(this.size, index + 1);
+        this.ensureOwned();
+        this.battery[index] = battery;
+        this.overflowPackets[index] = overflowPackets;
+        this.capacity[index] = capacity;
+        this.energy[index] = battery;
+        this.packetsLeft[index] = overflowPackets;
+        this.usedSpace[index] = 0;
+    }
+
+    private void beforeWrite(int index) {
+        this.ensureOwned();
+        this.journal(index);
+        this.markTouched(index);
+    }
+
+    private void markTouched(int index) {
+        if (!this.dirty[index]) {
+            this.dirty[index] = true;
+            this.dirtyNodes[this.dirtyCount++] = index;
+        }
+    }
+
+    private void journal(int index) {
+        if (this.liveSnapshots.isEmpty() || this.journaledEpoch[index] == this.epoch) {
+            return;
+        }
+        this.journaledEpoch[index] = this.epoch;
+        if (this.journalSize == this.journalNode.length) {
+            int capacity = this.journalSize * 2;
+            this.journalNode = Arrays.copyOf(this.journalNode, capacity);
+            this.journalEnergy = Arrays.copyOf(this.journalEnergy, capacity);
+            this.journalPacketsLeft = Arrays.copyOf(this.journalPacketsLeft, capacity);
+            this.journalUsedSpace = Arrays.copyOf(this.journalUsedSpace, capacity);
+        }
+        this.journalNode[this.journalSize] = index;
+        this.journalEnergy[this.journalSize] = this.energy[index];
+        this.journalPacketsLeft[this.journalSize] = this.packetsLeft[index];
+        this.journalUsedSpace[this.journalSize] = this.usedSpace[index];
+        this.journalSize++;
+    }
+
+    private void ensureOwned() {
+        if (!this.shared) {
+            return;
+        }
+        this.shared = false;
+        this.battery = this.battery.clone();
+        this.overflowPackets = this.overflowPackets.clone();
+        this.capacity = this.capacity.clone();
+        this.energy = this.energy.clone();
+        this.packetsLeft = this.packetsLeft.clone();
+        this.usedSpace = this.usedSpace.clone();
+        this.dirty = this.dirty.clone();
+        this.dirtyNodes = this.dirtyNodes.clone();
+    }
+
+    /**
+     * Listens to the changes of energy of the nodes of a {@link NetworkState}.
+     */
+    public interface EnergyListener {
+
+        /**
+         * Called after the energy of one node was set.
+         *
+         * @param index     the index of the node
+         * @param oldEnergy the energy before
+         * @param newEnergy the energy now
+         */
+        void energyChanged(int index, int oldEnergy, int newEnergy);
+
+        /**
+         * Called when many nodes get their energy back at once (on a reset or restore), instead of
+         * once per node.
+         */
+        void energiesReset();
+    }
+
+    /**
+     * A point in the history of a {@link NetworkState} that it can be restored to.
+     */
+    public static final class Snapshot {
+        private final NetworkState state;
+        private final int position;
+        private boolean released;
+
+        private Snapshot(NetworkState state, int position) {
+            this.state = state;
+            this.position = position;
+        }
+
+        public boolean isReleased() {
+            return this.released;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.grivera.generator.sensors;
+
+import java.util.Arrays;
+
+/**
+ * Orders the nodes of a store so that neighbors get nearby indices, which keeps the columns a search
+ * touches close together in memory (see {@link NodeStore#reordered(int[])}).
+ */
+public enum NodeOrdering {
+
+    /**
+     * Sorts the nodes along a Hilbert curve over their positions, so nodes that are close in space
+     * (and therefore neighbors) are close in memory.
+     */
+    HILBERT {
+        private static final int BITS = 15;
+
+        @Override
+        public int[] order(NodeStore store) {
+            final int n = store.size();
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                minX = Math.min(minX, store.getX(i));
+                minY = Math.min(minY, store.getY(i));
+                maxX = Math.max(maxX, store.getX(i));
+                maxY = Math.max(maxY, store.getY(i));
+            }
+            final int side = 1 << BITS;
+            final double scale = (side - 1) / Math.max(Math.max(maxX - minX, maxY - minY), Double.MIN_NORMAL);
+
+            long[] keys = new long[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = ((long) this.distanceAlongCurve(side,
+                        (int) ((store.getX(i) - minX) * scale), (int) ((store.getY(i) - minY) * scale)) << 32) | i;
+            }
+            return indicesOf(keys);
+        }
+
+        /* The position of a cell along the Hilbert curve through a side x side grid */
+        private int distanceAlongCurve(int side, int x, int y) {
+            int d = 0;
+            int rx, ry, tmp;
+            for (int s = side / 2; s > 0; s /= 2) {
+                rx = (x & s) > 0 ? 1 : 0;
+                ry = (y & s) > 0 ? 1 : 0;
+                d += s * s * ((3 * rx) ^ ry);
+                if (ry == 0) {
+                    if (rx == 1) {
+                        x = side - 1 - x;
+                        y = side - 1 - y;
+                    }
+                    tmp = x;
+                    x = y;
+                    y = tmp;
+                }
+            }
+            return d;
+        }
+    },
+
+    /**
+     * Orders the nodes breadth first from a node of lowest degree, visiting neighbors by increasing
+     * degree, and reverses the result (reverse Cuthill-McKee). This keeps the edges close to the
+     * diagonal of the adjacency matrix. Needs the edges of the store.
+     */
+    REVERSE_CUTHILL_MCKEE {
+        @Override
+        public int[] order(NodeStore store) {
+            final int n = store.size();
+            long[] byDegree = new long[n];
+            for (int i = 0; i < n; i++) {
+                byDegree[i] = ((long) degree(store, i) << 32) | i;
+            }
+            int[] starts = indicesOf(byDegree);
+
+            int[] order = new int[n];
+            boolean[] visited = new boolean[n];
+            long[] neighbors = new long[16];
+            int head = 0, tail = 0;
+            int curr, count, next;
+            for (int start : starts) {
+                if (visited[start]) {
+                    continue;
+                }
+                visited[start] = true;
+                order[tail++] = start;
+                while (head < tail) {
+                    curr = order[head++];
+                    count = 0;
+                    for (int e = store.getEdgeStart(curr); e < store.getEdgeEnd(curr); e++) {
+                        next = store.getEdgeTarget(e);
+                        if (!visited[next]) {
+                            visited[next] = true;
+                            if (count == neighbors.length) {
+                                neighbors = Arrays.copyOf(neighbors, count * 2);
+                            }
+                            neighbors[count++] = ((long) degree(store, next) << 32) | next;
+                        }
+                    }
+                    Arrays.sort(neighbors, 0, count);
+                    for (int k = 0; k < count; k++) {
+                        order[tail++] = (int) neighbors[k];
+                    }
+                }
+            }
+
+            for (int i = 0, j = n - 1; i < j; i++, j--) {
+                curr = order[i];
+                order[i] = order[j];
+                order[j] = curr;
+            }
+            return order;
+        }
+    };
+
+    /**
+     * Computes the new order of the nodes of a store.
+     *
+     * @param store the store to order
+     * @return the current index of the node at every new index
+     */
+    public abstract int[] order(NodeStore store);
+
+    private static int degree(NodeStore store, int index) {
+        return store.getEdgeEnd(index) - store.getEdgeStart(index);
+    }
+
+    /* Sorts (key, index) pairs packed into longs and gives back the indices */
+    private static int[] indicesOf(long[] keys) {
+        Arrays.sort(keys);
+        int[] indices = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            indices[i] = (int) keys[i];
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,456 @@
+package com.grivera.generator.sensors;
+
+import com.grivera.util.SpatialGrid;
+
+import java.util.Arrays;
+
+/**
+ * Stores the topology of a network (positions, types, values and adjacency) in columns
+ * (one primitive array per field) rather than one object per node.
+ *
+ * <p>
+ * Once its edges are built, a store is never changed again and can be shared by any number of
+ * networks and threads. Everything that a run changes (energy, packets, battery capacities) lives in
+ * a {@link NetworkState} created by {@link #createState()}, one per network.
+ * </p>
+ * <p>
+ * Nodes are addressed by their index, which is uuid - 1 unless the store was {@link #reordered(int[]) reordered}
+ * for locality. Uuids and per-type ids are assigned by each store, so any number of networks can be built
+ * at the same time, and they stay with their node when it is reordered. The {@link SensorNode} objects used by the rest of
+ * the API are lightweight views over one index of a store and a state, created when asked for.
+ * The adjacency of the nodes is kept in compressed sparse row form: the neighbors of node {@code i}
+ * are {@code getEdgeTarget(e)} for every {@code e} in {@code [getEdgeStart(i), getEdgeEnd(i))}.
+ * </p>
+ */
+public final class NodeStore {
+
+    public static final byte DATA = 0;
+    public static final byte STORAGE = 1;
+    public static final byte TRANSITION = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final double transmissionRange;
+    private int size;
+
+    /* The next id of each node type; uuids are index + 1 until the store is reordered */
+    private final int[] nextId = {1, 1, 1};
+    private int[] indexOfUuid;
+
+    /* Node columns */
+    double[] x;
+    double[] y;
+    byte[] type;
+    int[] uuid;
+    int[] id;
+    int[] value;
+
+    /* The state every network starts from, only written while adding nodes */
+    private final NetworkState initialState;
+    private boolean frozen;
+
+    /* Adjacency (CSR) */
+    private int[] edgeStart;
+    private int[] edgeTarget;
+    private volatile EdgeCosts edgeCosts;
+
+    public NodeStore(double transmissionRange) {
+        this(transmissionRange, INITIAL_CAPACITY);
+    }
+
+    public NodeStore(double transmissionRange, int initialCapacity) {
+        this.transmissionRange = transmissionRange;
+        int capacity = Math.max(1, initialCapacity);
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.type = new byte[capacity];
+        this.uuid = new int[capacity];
+        this.id = new int[capacity];
+        this.value = new int[capacity];
+        this.initialState = new NetworkState(this, capacity);
+        this.edgeStart = new int[1];
+        this.edgeTarget = new int[0];
+        this.edgeCosts = new EdgeCosts(SensorNode.BITS_PER_PACKET, new int[0]);
+    }
+
+    /* Shares the nodes of a frozen store, with other edges */
+    private NodeStore(NodeStore base, double transmissionRange, int[] edgeStart, int[] edgeTarget) {
+        this.transmissionRange = transmissionRange;
+        this.size = base.size;
+        this.x = base.x;
+        this.y = base.y;
+        this.type = base.type;
+        this.uuid = base.uuid;
+        this.id = base.id;
+        this.value = base.value;
+        this.indexOfUuid = base.indexOfUuid;
+        this.initialState = base.initialState.forkFor(this);
+        this.frozen = true;
+        this.edgeStart = edgeStart;
+        this.edgeTarget = edgeTarget;
+        this.edgeCosts = this.computeEdgeCosts();
+    }
+
+    /* Copies the nodes of a frozen store in another order, keeping their uuids, ids and edges */
+    private NodeStore(NodeStore base, int[] order) {
+        final int n = base.size;
+        this.transmissionRange = base.transmissionRange;
+        this.size = n;
+        this.x = new double[n];
+        this.y = new double[n];
+        this.type = new byte[n];
+        this.uuid = new int[n];
+        this.id = new int[n];
+        this.value = new int[n];
+        this.indexOfUuid = new int[n];
+
+        int[] newIndex = new int[n];
+        int old;
+        for (int index = 0; index < n; index++) {
+            old = order[index];
+            newIndex[old] = index;
+            this.x[index] = base.x[old];
+            this.y[index] = base.y[old];
+            this.type[index] = base.type[old];
+            this.uuid[index] = base.uuid[old];
+            this.id[index] = base.id[old];
+            this.value[index] = base.value[old];
+            this.indexOfUuid[this.uuid[index] - 1] = index;
+        }
+
+        /* Rows stay sorted by uuid, since renumbering the targets keeps their uuids */
+        this.edgeStart = new int[n + 1];
+        this.edgeTarget = new int[base.edgeTarget.length];
+        int next = 0;
+        for (int index = 0; index < n; index++) {
+            old = order[index];
+            for (int e = base.edgeStart[old]; e < base.edgeStart[old + 1]; e++) {
+                this.edgeTarget[next++] = newIndex[base.edgeTarget[e]];
+            }
+            this.edgeStart[index + 1] = next;
+        }
+
+        this.initialState = base.initialState.permutedFor(this, order);
+        this.frozen = true;
+        this.edgeCosts = this.computeEdgeCosts();
+    }
+
+    public int addDataNode(double x, double y, int battery, int overflowPackets, int value) {
+        int index = this.add(DATA, x, y);
+        this.value[index] = value;
+        this.initialState.add(index, battery, overflowPackets, 0);
+        return index;
+    }
+
+    public int addStorageNode(double x, double y, int battery, int capacity) {
+        int index = this.add(STORAGE, x, y);
+        this.initialState.add(index, battery, 0, capacity);
+        return index;
+    }
+
+    public int addTransitionNode(double x, double y, int battery) {
+        int index = this.add(TRANSITION, x, y);
+        this.initialState.add(index, battery, 0, 0);
+        return index;
+    }
+
+    private int add(byte type, double x, double y) {
+        if (this.frozen) {
+            throw new IllegalStateException("Cannot add nodes once the edges of the network are built!");
+        }
+        if (this.size == this.x.length) {
+            this.grow(this.size * 2);
+        }
+        int index = this.size++;
+        this.x[index] = x;
+        this.y[index] = y;
+        this.type[index] = type;
+        this.uuid[index] = index + 1;
+        this.id[index] = this.nextId[type]++;
+        return index;
+    }
+
+    private void grow(int capacity) {
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.type = Arrays.copyOf(this.type, capacity);
+        this.uuid = Arrays.copyOf(this.uuid, capacity);
+        this.id = Arrays.copyOf(this.id, capacity);
+        this.value = Arrays.copyOf(this.value, capacity);
+        this.initialState.grow(capacity);
+    }
+
+    /**
+     * Moves a node before the edges of the network are built.
+     *
+     * @param index the index of the node
+     * @param x     the new x coordinate
+     * @param y     the new y coordinate
+     */
+    public void setPosition(int index, double x, double y) {
+        if (this.frozen) {
+            throw new IllegalStateException("Cannot move nodes once the edges of the network are built!");
+        }
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException(String.format("Invalid node index %d", index));
+        }
+        this.x[index] = x;
+        this.y[index] = y;
+    }
+
+    /**
+     * Connects every pair of nodes that are within transmission range of each other.
+     * No nodes can be added afterwards.
+     */
+    public void buildEdges() {
+        this.frozen = true;
+        final int n = this.size;
+        final double range = this.transmissionRange + 0.0001;
+
+        /* Only nodes in nearby cells are compared; the grid radius is padded so rounding never drops an edge */
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, this.x[i]);
+            minY = Math.min(minY, this.y[i]);
+            maxX = Math.max(maxX, this.x[i]);
+            maxY = Math.max(maxY, this.y[i]);
+        }
+        SpatialGrid grid = new SpatialGrid(minX, minY, maxX, maxY, range, n);
+        for (int i = 0; i < n; i++) {
+            grid.add(i, this.x[i], this.y[i]);
+        }
+        final double radius = range * (1 + 1e-9) + 1e-9;
+
+        /* Gather the nodes of the nearby cells, then let the kernel test them several at a time */
+        final DistanceKernel kernel = DistanceKernel.get();
+        int[] start = new int[n + 1];
+        int[] target = new int[Math.max(16, 8 * n)];
+        int[][] candidates = {new int[64]};
+        int[] count = new int[1];
+        int[] hits = new int[64];
+        int found;
+        for (int i = 0; i < n; i++) {
+            final int from = i;
+            count[0] = 0;
+            grid.forEachNear(this.x[i], this.y[i], radius, j -> {
+                if (j != from) {
+                    if (count[0] == candidates[0].length) {
+                        candidates[0] = Arrays.copyOf(candidates[0], count[0] * 2);
+                    }
+                    candidates[0][count[0]++] = j;
+                }
+            });
+            if (hits.length < count[0]) {
+                hits = new int[candidates[0].length];
+            }
+            found = kernel.withinRange(this.x, this.y, i, candidates[0], count[0], range, hits);
+
+            if (start[i] + found > target.length) {
+                target = Arrays.copyOf(target, Math.max(target.length * 2, start[i] + found));
+            }
+            System.arraycopy(hits, 0, target, start[i], found);
+            start[i + 1] = start[i] + found;
+            Arrays.sort(target, start[i], start[i + 1]);
+        }
+        if (target.length != start[n]) {
+            target = Arrays.copyOf(target, start[n]);
+        }
+
+        this.edgeStart = start;
+        this.edgeTarget = target;
+        this.edgeCosts = this.computeEdgeCosts();
+    }
+
+    /**
+     * Creates a store over the same nodes, but with another transmission range and the given edges
+     * instead of building them again. This store can no longer be changed afterwards.
+     *
+     * @param transmissionRange the transmission range of the new store
+     * @param edgeStart         the start of the edges of every node (plus the end of the last node)
+     * @param edgeTarget        the heads of the edges, sorted by uuid within each node (as {@link #buildEdges()} does)
+     * @return a store that shares its nodes with this one
+     */
+    public NodeStore withEdges(double transmissionRange, int[] edgeStart, int[] edgeTarget) {
+        if (edgeStart.length != this.size + 1 || edgeStart[this.size] != edgeTarget.length) {
+            throw new IllegalArgumentException("The edges do not match the nodes of the store!");
+        }
+        this.frozen = true;
+        return new NodeStore(this, transmissionRange, edgeStart, edgeTarget);
+    }
+
+    /**
+     * Creates a store with the same nodes and edges, numbered in another order (e.g. to keep neighbors
+     * close together in memory, see {@link NodeOrdering}). Uuids, ids and therefore names stay with their
+     * nodes, and the neighbors of every node stay sorted by uuid, so searches break ties the same way.
+     *
+     * @param order the current index of the node at every new index (a permutation of the indices)
+     * @return the reordered store
+     * @throws IllegalArgumentException if the order is not a permutation of the indices
+     * @throws IllegalStateException    if the edges are not built yet
+     */
+    public NodeStore reordered(int[] order) {
+        if (this.edgeStart.length != this.size + 1) {
+            throw new IllegalStateException("Cannot reorder the nodes before the edges of the network are built!");
+        }
+        if (order.length != this.size) {
+            throw new IllegalArgumentException("The order must contain every node exactly once!");
+        }
+        boolean[] seen = new boolean[this.size];
+        for (int index : order) {
+            if (index < 0 || index >= this.size || seen[index]) {
+                throw new IllegalArgumentException("The order must contain every node exactly once!");
+            }
+            seen[index] = true;
+        }
+        this.frozen = true;
+        return new NodeStore(this, order);
+    }
+
+    private EdgeCosts computeEdgeCosts() {
+        final DistanceKernel kernel = DistanceKernel.get();
+        int bitsPerPacket = SensorNode.BITS_PER_PACKET;
+        int[] costs = new int[this.edgeTarget.length];
+        for (int i = 0; i < this.size; i++) {
+            kernel.transmissionCosts(this.x, this.y, i, this.edgeTarget, this.edgeStart[i], this.edgeStart[i + 1], bitsPerPacket, costs);
+        }
+        return new EdgeCosts(bitsPerPacket, costs);
+    }
+
+    /**
+     * Creates a new state for a network over this store, with every node at its initial
+     * energy and packets.
+     *
+     * @return a new network state
+     */
+    public NetworkState createState() {
+        this.frozen = true;
+        return this.initialState.fork();
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public double getTransmissionRange() {
+        return this.transmissionRange;
+    }
+
+    public double getX(int index) {
+        return this.x[index];
+    }
+
+    public double getY(int index) {
+        return this.y[index];
+    }
+
+    public byte getType(int index) {
+        return this.type[index];
+    }
+
+    public int getUuid(int index) {
+        return this.uuid[index];
+    }
+
+    /**
+     * Returns the index of the node with the given uuid.
+     *
+     * @param uuid the uuid of the node
+     * @return the index of the node
+     */
+    public int getIndexOfUuid(int uuid) {
+        if (uuid < 1 || uuid > this.size) {
+            throw new IndexOutOfBoundsException(String.format("Invalid node uuid %d", uuid));
+        }
+        return this.indexOfUuid == null ? uuid - 1 : this.indexOfUuid[uuid - 1];
+    }
+
+    public boolean isReordered() {
+        return this.indexOfUuid != null;
+    }
+
+    public int getId(int index) {
+        return this.id[index];
+    }
+
+    public int getValue(int index) {
+        return this.value[index];
+    }
+
+    public int getEdgeStart(int index) {
+        return this.edgeStart[index];
+    }
+
+    public int getEdgeEnd(int index) {
+        return this.edgeStart[index + 1];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return this.edgeTarget[edge];
+    }
+
+    public int getEdgeCount() {
+        return this.edgeTarget.length / 2;
+    }
+
+    /**
+     * Returns the cost for the tail of an edge to transmit one data packet along it.
+     *
+     * @param edge the edge (from {@link #getEdgeStart(int)} to {@link #getEdgeEnd(int)})
+     * @return the transmission cost of the edge
+     */
+    public int getTransmissionCost(int edge) {
+        EdgeCosts costs = this.edgeCosts;
+        if (costs.bitsPerPacket() != SensorNode.BITS_PER_PACKET) {
+            costs = this.computeEdgeCosts();
+            this.edgeCosts = costs;
+        }
+        return costs.costs()[edge];
+    }
+
+    /**
+     * Returns the edge from one node to another, if they are neighbors.
+     *
+     * @param from the index of the tail
+     * @param to   the index of the head
+     * @return the edge between both nodes; otherwise -1
+     */
+    public int findEdge(int from, int to) {
+        for (int e = this.edgeStart[from]; e < this.edgeStart[from + 1]; e++) {
+            if (this.edgeTarget[e] == to) {
+                return e;
+            }
+        }
+        return -1;
+    }
+
+    public double distance(int from, int to) {
+        double dx = this.x[from] - this.x[to];
+        double dy = this.y[from] - this.y[to];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public int transmissionCost(int from, int to) {
+        double distance = this.distance(from, to);
+        double cost = SensorNode.BITS_PER_PACKET * (SensorNode.E_elec + SensorNode.E_amp * distance * distance);
+        return (int) Math.round(cost * SensorNode.MICROJOULES_PER_JOULE);
+    }
+
+    /**
+     * Returns the cost to transmit one packet over no distance, which no edge is cheaper than.
+     *
+     * @return a lower bound of every transmission cost
+     */
+    public int getMinTransmissionCost() {
+        double cost = SensorNode.BITS_PER_PACKET * SensorNode.E_elec;
+        return (int) Math.round(cost * SensorNode.MICROJOULES_PER_JOULE);
+    }
+
+    public int getReceivingCost() {
+        double cost = SensorNode.BITS_PER_PACKET * SensorNode.E_elec;
+        return (int) Math.round(cost * SensorNode.MICROJOULES_PER_JOULE);
+    }
+
+    /* Edge costs are swapped as a whole, so readers on other threads never see half of an update */
+    private record EdgeCosts(int bitsPerPacket, int[] costs) {
+    }
+}
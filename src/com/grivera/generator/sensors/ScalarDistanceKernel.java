@@ -0,0 +1,38 @@
+package com.grivera.generator.sensors;
+
+/**
+ * A {@link DistanceKernel} with plain loops, used when the Vector API is not available.
+ */
+final class ScalarDistanceKernel implements DistanceKernel {
+
+    @Override
+    public int withinRange(double[] x, double[] y, int from, int[] candidates, int count, double range, int[] hits) {
+        final double fromX = x[from];
+        final double fromY = y[from];
+        int found = 0;
+        int candidate;
+        double dx, dy;
+        for (int i = 0; i < count; i++) {
+            candidate = candidates[i];
+            dx = fromX - x[candidate];
+            dy = fromY - y[candidate];
+            if (Math.sqrt(dx * dx + dy * dy) <= range) {
+                hits[found++] = candidate;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void transmissionCosts(double[] x, double[] y, int from, int[] targets, int start, int end, int bitsPerPacket, int[] costs) {
+        final double fromX = x[from];
+        final double fromY = y[from];
+        double dx, dy, distance;
+        for (int e = start; e < end; e++) {
+            dx = fromX - x[targets[e]];
+            dy = fromY - y[targets[e]];
+            distance = Math.sqrt(dx * dx + dy * dy);
+            costs[e] = (int) Math.round(bitsPerPacket * (SensorNode.E_elec + SensorNode.E_amp * distance * distance) * SensorNode.MICROJOULES_PER_JOULE);
+        }
+    }
+}
@@ -2,40 +2,49 @@ package com.grivera.generator.sensors;
 
 /**
  * Represents the basic form of a Sensor Node in a Sensor com.grivera.generator.Network
+ *
+ * <p>
+ * A Sensor Node is a lightweight view over one node of a {@link NodeStore}; all of its state lives in the store
+ * and its {@link NetworkState}.
+ * </p>
  */
 public abstract class SensorNode implements Comparable<SensorNode> {
 
-    private static int uuidCounter = 1;
-
     protected static int BITS_PER_PACKET = 3200;
     protected static final double E_elec = 100e-9;
     protected static final double E_amp = 100e-12;
+    static final double MICROJOULES_PER_JOULE = 1e6;
 
-    private int uuid;
-    private final double x, y, tr;
-    private int batteryCapacity;
-    private int energy;
+    protected final NodeStore store;
+    protected final NetworkState state;
+    protected final int index;
     private String name;
 
-    public SensorNode(double x, double y, double tr, String name, int c) {
-        this.x = x;
-        this.y = y;
-        this.tr = tr;
-        this.name = name;
-        this.uuid = uuidCounter++;
-        this.setBatteryCapacity(c);
+    protected SensorNode(NetworkState state, int index) {
+        this.store = state.getNodeStore();
+        this.state = state;
+        this.index = index;
     }
 
     public double getX() {
-        return this.x;
+        return this.store.x[this.index];
     }
 
     public double getY() {
-        return this.y;
+        return this.store.y[this.index];
     }
 
     public int getUuid() {
-        return this.uuid;
+        return this.store.uuid[this.index];
+    }
+
+    /**
+     * Returns the index of this Sensor Node in its {@link NodeStore} and {@link NetworkState}.
+     *
+     * @return the index of this Sensor Node
+     */
+    public int getIndex() {
+        return this.index;
     }
 
     /**
@@ -46,7 +55,7 @@ public abstract class SensorNode implements Comparable<SensorNode> {
      * of the specified Sensor Node; otherwise false
      */
     public boolean inRangeOf(SensorNode o) {
-        return this.distanceTo(o) <= Math.min(this.tr, o.tr) + 0.0001;
+        return this.distanceTo(o) <= Math.min(this.store.getTransmissionRange(), o.store.getTransmissionRange()) + 0.0001;
     }
 
     /**
@@ -56,7 +65,9 @@ public abstract class SensorNode implements Comparable<SensorNode> {
      * @return the distance between the two nodes (in meters)
      */
     public double distanceTo(SensorNode o) {
-        return Math.sqrt(Math.pow(this.x - o.x, 2) + Math.pow(this.y - o.y, 2));
+        double dx = this.getX() - o.getX();
+        double dy = this.getY() - o.getY();
+        return Math.sqrt(dx * dx + dy * dy);
     }
 
     @Override
@@ -65,38 +76,40 @@ public abstract class SensorNode implements Comparable<SensorNode> {
     }
 
     public String getName() {
+        if (this.name == null) {
+            this.name = String.format("%s%02d", this.getNamePrefix(), this.getId());
+        }
         return this.name;
     }
 
     public void setBatteryCapacity(int batteryCapacity) {
-        this.batteryCapacity = batteryCapacity;
-        this.resetEnergy();
+        this.state.setBatteryCapacity(this.index, batteryCapacity);
     }
     
     public int getEnergy() {
-        return this.energy;
+        return this.state.energy[this.index];
     }
     
     public boolean hasEnergy() {
-        return this.energy > 0;
+        return this.getEnergy() > 0;
     }
     
     public void resetEnergy() {
-        this.energy = this.batteryCapacity;
+        this.state.resetEnergy(this.index);
     }
 
     public boolean canTransmitTo(SensorNode receiverNode, int packets) {
-        return this.calculateTransmissionCost(receiverNode) * packets <= this.energy;
+        return this.calculateTransmissionCost(receiverNode) * packets <= this.getEnergy();
     }
 
     public void transmitTo(SensorNode receiverNode, int packets) {
         if (!this.canTransmitTo(receiverNode, packets)) {
-            throw new IllegalArgumentException(String.format("%s cannot transmit %d packets to %s (%d microJ > %d/%d microJ left)", this.getName(), packets, receiverNode.getName(), this.calculateTransmissionCost(receiverNode) * packets, this.energy, this.batteryCapacity));
+            throw new IllegalArgumentException(String.format("%s cannot transmit %d packets to %s (%d microJ > %d/%d microJ left)", this.getName(), packets, receiverNode.getName(), this.calculateTransmissionCost(receiverNode) * packets, this.getEnergy(), this.state.battery[this.index]));
         }
         if (receiverNode.equals(this)) {
             return;
         }
-        this.energy -= this.calculateTransmissionCost(receiverNode) * packets;
+        this.state.setEnergy(this.index, this.getEnergy() - this.calculateTransmissionCost(receiverNode) * packets);
     }
 
     /**
@@ -106,23 +119,27 @@ public abstract class SensorNode implements Comparable<SensorNode> {
      * @return the cost to transmit/relay one data packet from this Sensor Node to the receiver Sensor Node
      */
     public int calculateTransmissionCost(SensorNode receiverNode) {
-        double cost = BITS_PER_PACKET * (E_elec + E_amp * Math.pow(this.distanceTo(receiverNode), 2));
-        return (int) Math.round(cost * Math.pow(10, 6));
+        if (receiverNode.store == this.store) {
+            return this.store.transmissionCost(this.index, receiverNode.index);
+        }
+        double distance = this.distanceTo(receiverNode);
+        double cost = BITS_PER_PACKET * (E_elec + E_amp * distance * distance);
+        return (int) Math.round(cost * MICROJOULES_PER_JOULE);
     }
 
     public boolean canReceiveFrom(SensorNode senderNode, int packets) {
-        return this.calculateReceivingCost() * packets <= this.energy;
+        return this.calculateReceivingCost() * packets <= this.getEnergy();
     }
 
     public void receiveFrom(SensorNode senderNode, int packets) {
         if (!this.canReceiveFrom(senderNode, packets)) {
-            throw new IllegalArgumentException(String.format("%s cannot receive %d packets from %s (%d > %d/%d microJ left)", this.getName(), packets, senderNode.getName(), this.calculateReceivingCost() * packets, this.energy, this.batteryCapacity));
+            throw new IllegalArgumentException(String.format("%s cannot receive %d packets from %s (%d > %d/%d microJ left)", this.getName(), packets, senderNode.getName(), this.calculateReceivingCost() * packets, this.getEnergy(), this.state.battery[this.index]));
         }
 
         if (senderNode.equals(this)) {
             return;
         }
-        this.energy -= this.calculateReceivingCost() * packets;
+        this.state.setEnergy(this.index, this.getEnergy() - this.calculateReceivingCost() * packets);
     }
 
     /**
@@ -131,8 +148,7 @@ public abstract class SensorNode implements Comparable<SensorNode> {
      * @return the cost for this Sensor Node to receive a transmitted/relayed data packet
      */
     public int calculateReceivingCost() {
-        double cost = BITS_PER_PACKET * E_elec;
-        return (int) Math.round(cost * Math.pow(10, 6));
+        return this.store.getReceivingCost();
     }
 
     @Override
@@ -150,11 +166,7 @@ public abstract class SensorNode implements Comparable<SensorNode> {
 
     @Override
     public int hashCode() {
-        return this.uuid;
-    }
-
-    public static void resetCounter() {
-        uuidCounter = 1;
+        return this.getUuid();
     }
 
     public static int getBitsPerPacket() {
@@ -165,8 +177,12 @@ public abstract class SensorNode implements Comparable<SensorNode> {
         BITS_PER_PACKET = bitsPerPacket;
     }
 
+    public int getId() {
+        return this.store.id[this.index];
+    }
+
+    protected abstract String getNamePrefix();
     public abstract void resetPackets();
-    public abstract int getId();
 
     public abstract boolean canOffloadTo(SensorNode receiverNode, int packets);
     public abstract void offloadTo(SensorNode receiverNode, int packets);
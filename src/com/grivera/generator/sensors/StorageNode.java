@@ -9,41 +9,33 @@ public class StorageNode extends SensorNode {
 
     private static final double E_store = 100e-9;
 
-    private static int idCounter = 1;
-    private int id;
-    private int capacity;
-    private int usedSpace;
-
-    public StorageNode(double x, double y, double tr, int power, int capacity) {
-        super(x, y, tr, String.format("SN%02d", idCounter), power);
-        this.id = idCounter++;
-        this.setCapacity(capacity);
+    StorageNode(NetworkState state, int index) {
+        super(state, index);
     }
 
     public void setCapacity(int capacity) {
-        this.capacity = capacity;
-        this.usedSpace = 0;
+        this.state.setCapacity(this.index, capacity);
     }
 
     public int getCapacity() {
-        return this.capacity;
+        return this.state.capacity[this.index];
     }
 
     public int getUsedSpace() {
-        return this.usedSpace;
+        return this.state.usedSpace[this.index];
     }
 
     public int getSpaceLeft() {
-        return this.capacity - this.usedSpace;
+        return this.getCapacity() - this.getUsedSpace();
     }
 
     public boolean isFull() {
-        return this.usedSpace >= this.capacity;
+        return this.getUsedSpace() >= this.getCapacity();
     }
 
     @Override
     public boolean canStoreFrom(SensorNode senderNode, int packets) {
-        return this.canReceiveFrom(senderNode, packets) && this.usedSpace + packets <= this.capacity;
+        return this.canReceiveFrom(senderNode, packets) && this.getUsedSpace() + packets <= this.getCapacity();
     }
 
     @Override
@@ -53,28 +45,24 @@ public class StorageNode extends SensorNode {
         }
 
         super.receiveFrom(senderNode, packets);
-        this.usedSpace += packets;
+        this.state.setUsedSpace(this.index, this.getUsedSpace() + packets);
     }
 
     @Override
     public void resetPackets() {
-        this.usedSpace = 0;
+        this.state.resetPackets(this.index);
     }
 
     @Override
-    public int getId() {
-        return this.id;
+    protected String getNamePrefix() {
+        return "SN";
     }
 
     public int calculateStorageCost() {
-        double cost = this.usedSpace * BITS_PER_PACKET * E_store;
-        return (int) Math.round(cost * Math.pow(10, 6));
+        double cost = this.getUsedSpace() * BITS_PER_PACKET * E_store;
+        return (int) Math.round(cost * MICROJOULES_PER_JOULE);
     } 
 
-    public static void resetCounter() {
-        idCounter = 1;
-    }
-
     @Override
     public boolean canOffloadTo(SensorNode receiverNode, int packets) {
        return false;
@@ -0,0 +1,86 @@
+package com.grivera.generator.topology;
+
+import java.util.SplittableRandom;
+
+/**
+ * Assigns the types and values of the nodes that a generator places.
+ *
+ * <p>
+ * Subclasses only choose positions. Exactly {@code dataNodeCount} Data Nodes and
+ * {@code storageNodeCount} Storage Nodes are spread uniformly over the placed positions,
+ * and the rest become Transition Nodes.
+ * </p>
+ */
+public abstract class AbstractTopologyGenerator implements TopologyGenerator {
+
+    @Override
+    public final void generate(TopologySpec spec, long seed, NodeSink sink) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom positions = root.split();
+        SplittableRandom types = root.split();
+
+        sink.begin(spec);
+        Emitter emitter = new Emitter(spec, types, sink);
+        this.place(spec, positions, emitter);
+        if (emitter.placed != spec.nodeCount()) {
+            throw new IllegalStateException(String.format("%s placed %d of %d nodes!",
+                    this.getClass().getSimpleName(), emitter.placed, spec.nodeCount()));
+        }
+        sink.end();
+    }
+
+    /**
+     * Places exactly {@code spec.nodeCount()} nodes inside the area of the network, such that the
+     * nodes are connected (unless the generator documents otherwise).
+     *
+     * @param spec   the parameters of the network
+     * @param rand   the random numbers to place the nodes with
+     * @param placer receives the position of every node
+     */
+    protected abstract void place(TopologySpec spec, SplittableRandom rand, Placer placer);
+
+    /**
+     * Receives the positions of the nodes, in the order they are placed.
+     */
+    @FunctionalInterface
+    protected interface Placer {
+        void place(double x, double y);
+    }
+
+    private static final class Emitter implements Placer {
+        private final TopologySpec spec;
+        private final SplittableRandom rand;
+        private final NodeSink sink;
+        private int dataNodesLeft;
+        private int storageNodesLeft;
+        private int placed;
+
+        Emitter(TopologySpec spec, SplittableRandom rand, NodeSink sink) {
+            this.spec = spec;
+            this.rand = rand;
+            this.sink = sink;
+            this.dataNodesLeft = spec.dataNodeCount();
+            this.storageNodesLeft = spec.storageNodeCount();
+        }
+
+        @Override
+        public void place(double x, double y) {
+            if (this.placed == this.spec.nodeCount()) {
+                throw new IllegalStateException("Cannot place more nodes than the network has!");
+            }
+
+            /* Sampling without replacement keeps the exact type counts without holding every node */
+            int choice = this.rand.nextInt(this.spec.nodeCount() - this.placed);
+            if (choice < this.dataNodesLeft) {
+                this.sink.dataNode(x, y, this.rand.nextInt(this.spec.highestValue() - this.spec.lowestValue() + 1) + this.spec.lowestValue());
+                this.dataNodesLeft--;
+            } else if (choice < this.dataNodesLeft + this.storageNodesLeft) {
+                this.sink.storageNode(x, y);
+                this.storageNodesLeft--;
+            } else {
+                this.sink.transitionNode(x, y);
+            }
+            this.placed++;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.grivera.generator.topology;
+
+import com.grivera.util.SpatialGrid;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Places nodes in Gaussian hotspots around random centers, e.g. sensors concentrated
+ * around points of interest.
+ *
+ * <p>
+ * The centers are first joined by chains of relay nodes along a minimum spanning tree, so the hotspots
+ * can reach each other. Every other node is drawn around a random center and only kept if it is in
+ * range of a node that was already placed, which keeps the network connected as it grows.
+ * </p>
+ */
+public class ClusteredGenerator extends AbstractTopologyGenerator {
+
+    private static final int MAX_DRAWS = 64;
+    private static final double RELAY_SPACING = 0.9;
+
+    private final int clusters;
+    private final double spread;
+
+    /**
+     * @param clusters the number of hotspots
+     */
+    public ClusteredGenerator(int clusters) {
+        this(clusters, 1);
+    }
+
+    /**
+     * @param clusters the number of hotspots
+     * @param spread   the standard deviation of a hotspot, as a multiple of the transmission range
+     */
+    public ClusteredGenerator(int clusters, double spread) {
+        if (clusters < 1) {
+            throw new IllegalArgumentException("A clustered network needs at least one hotspot!");
+        }
+        if (!(spread > 0)) {
+            throw new IllegalArgumentException("The spread of a hotspot must be positive!");
+        }
+        this.clusters = clusters;
+        this.spread = spread;
+    }
+
+    @Override
+    protected void place(TopologySpec spec, SplittableRandom rand, Placer placer) {
+        final int n = spec.nodeCount();
+        final double width = spec.width();
+        final double length = spec.length();
+        final double tr = spec.transmissionRange();
+        final int k = Math.min(this.clusters, n);
+
+        double[] centerX = new double[k];
+        double[] centerY = new double[k];
+        for (int i = 0; i < k; i++) {
+            centerX[i] = width * rand.nextDouble();
+            centerY[i] = length * rand.nextDouble();
+        }
+
+        /* Prim's algorithm over the complete graph of the centers */
+        int[] treeParent = new int[k];
+        double[] treeDistance = new double[k];
+        boolean[] inTree = new boolean[k];
+        Arrays.fill(treeDistance, Double.POSITIVE_INFINITY);
+        treeDistance[0] = 0;
+        treeParent[0] = -1;
+
+        int relays = 0;
+        int next;
+        double distance;
+        for (int added = 0; added < k; added++) {
+            next = -1;
+            for (int i = 0; i < k; i++) {
+                if (!inTree[i] && (next == -1 || treeDistance[i] < treeDistance[next])) {
+                    next = i;
+                }
+            }
+            inTree[next] = true;
+            if (treeParent[next] >= 0) {
+                relays += this.hops(treeDistance[next], tr) - 1;
+            }
+            for (int i = 0; i < k; i++) {
+                distance = Math.hypot(centerX[i] - centerX[next], centerY[i] - centerY[next]);
+                if (!inTree[i] && distance < treeDistance[i]) {
+                    treeDistance[i] = distance;
+                    treeParent[i] = next;
+                }
+            }
+        }
+        if (k + relays > n) {
+            throw new IllegalArgumentException(String.format(
+                    "%d nodes are not enough to connect %d hotspots (%d are needed)!", n, k, k + relays));
+        }
+
+        SpatialGrid grid = new SpatialGrid(0, 0, width, length, tr, n);
+        Occupancy occupancy = Occupancy.of(width, length, tr, n);
+        int[] count = {0};
+        Placer tracked = (x, y) -> {
+            grid.add(count[0]++, x, y);
+            if (occupancy != null) {
+                occupancy.add(x, y);
+            }
+            placer.place(x, y);
+        };
+
+        for (int i = 0; i < k; i++) {
+            tracked.place(centerX[i], centerY[i]);
+        }
+
+        int hops;
+        for (int i = 1; i < k; i++) {
+            if (treeParent[i] < 0) {
+                continue;
+            }
+            hops = this.hops(treeDistance[i], tr);
+            for (int hop = 1; hop < hops; hop++) {
+                tracked.place(
+                        centerX[treeParent[i]] + (centerX[i] - centerX[treeParent[i]]) * hop / hops,
+                        centerY[treeParent[i]] + (centerY[i] - centerY[treeParent[i]]) * hop / hops
+                );
+            }
+        }
+
+        final double sigma = this.spread * tr;
+        int center;
+        double x, y;
+        while (count[0] < n) {
+            center = rand.nextInt(k);
+            x = y = Double.NaN;
+            for (int draw = 0; draw < MAX_DRAWS; draw++) {
+                x = centerX[center] + sigma * rand.nextGaussian();
+                y = centerY[center] + sigma * rand.nextGaussian();
+                if (x >= 0 && x <= width && y >= 0 && y <= length
+                        && ((occupancy != null && occupancy.isOccupied(x, y)) || grid.anyWithin(x, y, tr))) {
+                    break;
+                }
+                x = Double.NaN;
+            }
+
+            if (Double.isNaN(x)) {
+                /* Too far out in the tail, so settle for a node right next to the center */
+                double angle = 2 * Math.PI * rand.nextDouble();
+                double radius = tr * rand.nextDouble();
+                x = Math.max(0, Math.min(width, centerX[center] + radius * Math.cos(angle)));
+                y = Math.max(0, Math.min(length, centerY[center] + radius * Math.sin(angle)));
+            }
+            tracked.place(x, y);
+        }
+    }
+
+    private int hops(double distance, double tr) {
+        return Math.max(1, (int) Math.ceil(distance / (RELAY_SPACING * tr)));
+    }
+
+    /*
+     * The cells (no wider than tr / sqrt(2)) that hold a node: any two points of a cell are in range, so a draw
+     * into an occupied cell is connected without walking the nodes of the hotspot around it
+     */
+    private static final class Occupancy {
+        private final double cellSize;
+        private final int columns;
+        private final long[] occupied;
+
+        private Occupancy(double cellSize, int columns, int rows) {
+            this.cellSize = cellSize;
+            this.columns = columns;
+            this.occupied = new long[(int) (((long) columns * rows + 63) >>> 6)];
+        }
+
+        /* Returns null if the area needs too many cells for the nodes, where the nodes are too sparse to need it */
+        static Occupancy of(double width, double length, double tr, int n) {
+            double cellSize = tr / Math.sqrt(2) * (1 - 1e-9);
+            long columns = (long) (width / cellSize) + 1;
+            long rows = (long) (length / cellSize) + 1;
+            if (columns * rows > Math.min(8L * n, 64L * Integer.MAX_VALUE)) {
+                return null;
+            }
+            return new Occupancy(cellSize, (int) columns, (int) rows);
+        }
+
+        void add(double x, double y) {
+            long cell = this.cellAt(x, y);
+            this.occupied[(int) (cell >>> 6)] |= 1L << cell;
+        }
+
+        boolean isOccupied(double x, double y) {
+            long cell = this.cellAt(x, y);
+            return (this.occupied[(int) (cell >>> 6)] & (1L << cell)) != 0;
+        }
+
+        private long cellAt(double x, double y) {
+            return (long) (y / this.cellSize) * this.columns + (long) (x / this.cellSize);
+        }
+    }
+}
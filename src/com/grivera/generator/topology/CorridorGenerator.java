@@ -0,0 +1,73 @@
+package com.grivera.generator.topology;
+
+import java.util.SplittableRandom;
+
+/**
+ * Places nodes along a narrow corridor through the middle of the area, e.g. sensors along a
+ * road, pipeline or tunnel.
+ *
+ * <p>
+ * The corridor runs along the longer side of the area. Consecutive nodes are at random gaps that
+ * never exceed the transmission range, and the gaps are scaled down as a whole if they would not fit
+ * the corridor, so the nodes always form a connected chain.
+ * </p>
+ */
+public class CorridorGenerator extends AbstractTopologyGenerator {
+
+    private final double corridorWidth;
+
+    /**
+     * Creates corridors half as wide as the transmission range.
+     */
+    public CorridorGenerator() {
+        this(0.5);
+    }
+
+    /**
+     * @param corridorWidth the width of the corridor, as a multiple of the transmission range (below 1)
+     */
+    public CorridorGenerator(double corridorWidth) {
+        if (!(corridorWidth >= 0 && corridorWidth < 1)) {
+            throw new IllegalArgumentException("The width of a corridor must be at least 0 and below 1!");
+        }
+        this.corridorWidth = corridorWidth;
+    }
+
+    @Override
+    protected void place(TopologySpec spec, SplittableRandom rand, Placer placer) {
+        final int n = spec.nodeCount();
+        final double tr = spec.transmissionRange();
+        final boolean horizontal = spec.width() >= spec.length();
+        final double along = horizontal ? spec.width() : spec.length();
+        final double across = horizontal ? spec.length() : spec.width();
+
+        final double breadth = Math.min(across, this.corridorWidth * tr);
+        final double maxGap = Math.sqrt(tr * tr - breadth * breadth);
+
+        /* Draw the gaps twice from the same seed: once to measure the chain, once to place it */
+        final long gapSeed = rand.nextLong();
+        SplittableRandom gaps = new SplittableRandom(gapSeed);
+        double total = 0;
+        for (int i = 1; i < n; i++) {
+            total += maxGap * gaps.nextDouble();
+        }
+        final double scale = total > along ? along / total : 1;
+        final double start = Math.max(0, (along - total * scale) / 2);
+        final double low = (across - breadth) / 2;
+
+        gaps = new SplittableRandom(gapSeed);
+        double position = start;
+        double offset;
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                position += scale * maxGap * gaps.nextDouble();
+            }
+            offset = low + breadth * rand.nextDouble();
+            if (horizontal) {
+                placer.place(Math.min(position, along), offset);
+            } else {
+                placer.place(offset, Math.min(position, along));
+            }
+        }
+    }
+}
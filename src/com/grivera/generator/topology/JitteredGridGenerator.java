@@ -0,0 +1,75 @@
+package com.grivera.generator.topology;
+
+import java.util.SplittableRandom;
+
+/**
+ * Places one node in each cell of a grid, moved randomly around the center of its cell.
+ *
+ * <p>
+ * The spacing of the grid is shrunk below the transmission range if needed, and the jitter is bounded
+ * so that neighbouring cells always stay in range of each other.
+ * </p>
+ */
+public class JitteredGridGenerator extends AbstractTopologyGenerator {
+
+    private static final double MAX_SPACING = 0.95;
+
+    private final double jitter;
+
+    public JitteredGridGenerator() {
+        this(1);
+    }
+
+    /**
+     * @param jitter how far the nodes may move, from 0 (a regular grid) to 1 (as far as connectivity allows)
+     */
+    public JitteredGridGenerator(double jitter) {
+        if (!(jitter >= 0 && jitter <= 1)) {
+            throw new IllegalArgumentException("The jitter of a grid must be between 0 and 1!");
+        }
+        this.jitter = jitter;
+    }
+
+    @Override
+    protected void place(TopologySpec spec, SplittableRandom rand, Placer placer) {
+        final int n = spec.nodeCount();
+        final double width = spec.width();
+        final double length = spec.length();
+        final double tr = spec.transmissionRange();
+
+        int columns = (int) Math.max(1, Math.min(n, Math.round(Math.sqrt(n * width / length))));
+        int rows = (n + columns - 1) / columns;
+
+        double spacingX = width / columns;
+        double spacingY = length / rows;
+        double spacing = Math.max(spacingX, spacingY);
+        if (spacing > MAX_SPACING * tr) {
+            spacingX *= MAX_SPACING * tr / spacing;
+            spacingY *= MAX_SPACING * tr / spacing;
+            spacing = MAX_SPACING * tr;
+        }
+
+        /*
+         * Two neighbouring nodes are at most (spacing + 2j) apart along the grid and 2j across it,
+         * so (spacing + 2j)^2 + (2j)^2 <= tr^2 bounds the jitter j. Staying inside the cell also
+         * keeps every node inside the area.
+         */
+        double maxJitter = (Math.sqrt(2 * tr * tr - spacing * spacing) - spacing) / 4;
+        maxJitter = Math.min(maxJitter, Math.min(spacingX, spacingY) / 2);
+        final double j = this.jitter * Math.max(0, maxJitter);
+
+        /* Center the (possibly shrunk) grid in the area */
+        final double offsetX = (width - spacingX * columns) / 2;
+        final double offsetY = (length - spacingY * rows) / 2;
+
+        int placed = 0;
+        for (int row = 0; row < rows && placed < n; row++) {
+            for (int column = 0; column < columns && placed < n; column++, placed++) {
+                placer.place(
+                        offsetX + (column + 0.5) * spacingX + j * (2 * rand.nextDouble() - 1),
+                        offsetY + (row + 0.5) * spacingY + j * (2 * rand.nextDouble() - 1)
+                );
+            }
+        }
+    }
+}
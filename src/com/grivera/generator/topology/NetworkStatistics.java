@@ -0,0 +1,36 @@
+package com.grivera.generator.topology;
+
+import java.io.PrintStream;
+
+/**
+ * The degree and connectivity statistics of a network, as measured by a {@link SweepStatisticsSink}.
+ *
+ * @param nodeCount        the number of nodes
+ * @param edgeCount        the number of (undirected) edges
+ * @param minDegree        the smallest number of neighbours of a node
+ * @param maxDegree        the largest number of neighbours of a node
+ * @param isolatedNodes    the number of nodes without neighbours
+ * @param componentCount   the number of connected components
+ * @param largestComponent the number of nodes in the largest connected component
+ * @param peakWindow       the largest number of nodes held in memory at once
+ */
+public record NetworkStatistics(int nodeCount, long edgeCount, int minDegree, int maxDegree, int isolatedNodes,
+                                int componentCount, int largestComponent, int peakWindow) {
+
+    public double getAverageDegree() {
+        return this.nodeCount == 0 ? 0 : 2.0 * this.edgeCount / this.nodeCount;
+    }
+
+    public boolean isConnected() {
+        return this.componentCount <= 1;
+    }
+
+    public void printSummary(PrintStream out) {
+        out.printf("Nodes: %d, Edges: %d\n", this.nodeCount, this.edgeCount);
+        out.printf("Degree: min %d, max %d, average %.2f (%d isolated)\n",
+                this.minDegree, this.maxDegree, this.getAverageDegree(), this.isolatedNodes);
+        out.printf("Components: %d (largest has %d nodes)\n", this.componentCount, this.largestComponent);
+        out.printf("Connected: %b\n", this.isConnected());
+        out.printf("Peak nodes in memory: %d\n", this.peakWindow);
+    }
+}
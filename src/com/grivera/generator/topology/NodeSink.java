@@ -0,0 +1,25 @@
+package com.grivera.generator.topology;
+
+/**
+ * Receives the nodes of a network one at a time, as a {@link TopologyGenerator} places them.
+ */
+public interface NodeSink {
+
+    /**
+     * Called once before the first node.
+     *
+     * @param spec the parameters of the network
+     */
+    void begin(TopologySpec spec);
+
+    void dataNode(double x, double y, int value);
+
+    void storageNode(double x, double y);
+
+    void transitionNode(double x, double y);
+
+    /**
+     * Called once after the last node.
+     */
+    void end();
+}
@@ -0,0 +1,45 @@
+package com.grivera.generator.topology;
+
+import com.grivera.generator.sensors.NodeStore;
+
+/**
+ * Adds the generated nodes straight into the columns of a {@link NodeStore}.
+ */
+public class NodeStoreSink implements NodeSink {
+
+    private TopologySpec spec;
+    private NodeStore store;
+
+    @Override
+    public void begin(TopologySpec spec) {
+        this.spec = spec;
+        this.store = new NodeStore(spec.transmissionRange(), spec.nodeCount());
+    }
+
+    @Override
+    public void dataNode(double x, double y, int value) {
+        this.store.addDataNode(x, y, this.spec.batteryCapacity(), this.spec.dataPacketCount(), value);
+    }
+
+    @Override
+    public void storageNode(double x, double y) {
+        this.store.addStorageNode(x, y, this.spec.batteryCapacity(), this.spec.storageCapacity());
+    }
+
+    @Override
+    public void transitionNode(double x, double y) {
+        this.store.addTransitionNode(x, y, this.spec.batteryCapacity());
+    }
+
+    @Override
+    public void end() {
+        /* The edges are built by the network that takes the store */
+    }
+
+    public NodeStore getStore() {
+        if (this.store == null) {
+            throw new IllegalStateException("No nodes were generated yet!");
+        }
+        return this.store;
+    }
+}
@@ -0,0 +1,203 @@
+package com.grivera.generator.topology;
+
+import com.grivera.util.SpatialGrid;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Places nodes with Poisson-disk (blue noise) sampling: nodes are evenly spread, yet random, with no
+ * two nodes closer than a minimum distance.
+ *
+ * <p>
+ * Following Bridson's algorithm, every new node is drawn in an annulus around an already placed node.
+ * The annulus never reaches past the transmission range, so every node is connected to the node it
+ * grew from. If the area fills up before every node is placed, the minimum distance is shrunk, and the
+ * nodes placed so far grow again one at a time, only while no newer node can grow.
+ * </p>
+ */
+public class PoissonDiskGenerator extends AbstractTopologyGenerator {
+
+    private static final int CANDIDATES = 16;
+    private static final int RECENT = 32;
+    private static final int MAX_CELLS_PER_NODE = 8;
+    private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+    private static final double GOLDEN_COS = Math.cos(GOLDEN_ANGLE);
+    private static final double GOLDEN_SIN = Math.sin(GOLDEN_ANGLE);
+
+    @Override
+    protected void place(TopologySpec spec, SplittableRandom rand, Placer placer) {
+        final int n = spec.nodeCount();
+        final double width = spec.width();
+        final double length = spec.length();
+
+        /* Aim for a spacing that fits every node in the area, but never more than half the range */
+        double minDistance = Math.min(spec.transmissionRange() / 2, 0.75 * Math.sqrt(width * length / n));
+
+        BackgroundGrid background = BackgroundGrid.of(width, length, minDistance, n);
+        SpatialGrid grid = background == null ? new SpatialGrid(0, 0, width, length, minDistance, n) : null;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int[] active = new int[n];
+        int activeCount = 0;
+        int[] dormant = new int[n];
+        int dormantCount = 0;
+        int placed = 0;
+
+        xs[0] = width * rand.nextDouble();
+        ys[0] = length * rand.nextDouble();
+        if (background != null) {
+            background.add(0, xs[0], ys[0]);
+        } else {
+            grid.add(0, xs[0], ys[0]);
+        }
+        placer.place(xs[0], ys[0]);
+        active[activeCount++] = placed++;
+
+        int slot;
+        int parent;
+        boolean found;
+        double angle, dirX, dirY, turned, radius, x = 0, y = 0;
+        while (placed < n) {
+            if (activeCount == 0) {
+                if (dormantCount == 0) {
+                    /* The area is full at this spacing, so tighten it; every node may grow again */
+                    minDistance *= 0.7;
+                    for (int i = 0; i < placed; i++) {
+                        dormant[i] = i;
+                    }
+                    dormantCount = placed;
+
+                    /* The cells of the background grid must shrink with the spacing */
+                    if (background != null) {
+                        background = BackgroundGrid.of(width, length, minDistance, n);
+                        if (background == null) {
+                            grid = new SpatialGrid(0, 0, width, length, minDistance, n);
+                        }
+                        for (int i = 0; i < placed; i++) {
+                            if (background != null) {
+                                background.add(i, xs[i], ys[i]);
+                            } else {
+                                grid.add(i, xs[i], ys[i]);
+                            }
+                        }
+                    }
+                }
+
+                /* Wake a random node only when nothing can grow, since the new nodes fill most of the area anyway */
+                slot = rand.nextInt(dormantCount);
+                active[activeCount++] = dormant[slot];
+                dormant[slot] = dormant[--dormantCount];
+            }
+
+            /* Grow from one of the newest active nodes, whose neighborhood was just touched */
+            slot = activeCount - 1 - rand.nextInt(Math.min(activeCount, RECENT));
+            parent = active[slot];
+            found = false;
+
+            /* Turn the candidates around the parent by the golden angle, so only the first one needs trigonometry */
+            angle = 2 * Math.PI * rand.nextDouble();
+            dirX = Math.cos(angle);
+            dirY = Math.sin(angle);
+            for (int candidate = 0; candidate < CANDIDATES && !found; candidate++) {
+                if (candidate > 0) {
+                    turned = dirX * GOLDEN_COS - dirY * GOLDEN_SIN;
+                    dirY = dirX * GOLDEN_SIN + dirY * GOLDEN_COS;
+                    dirX = turned;
+                }
+                radius = minDistance * (1 + rand.nextDouble());
+                x = xs[parent] + radius * dirX;
+                y = ys[parent] + radius * dirY;
+                found = x >= 0 && x <= width && y >= 0 && y <= length && !(background != null
+                        ? background.anyWithin(x, y, minDistance, xs, ys) : grid.anyWithin(x, y, minDistance));
+            }
+
+            if (!found) {
+                active[slot] = active[--activeCount];
+                continue;
+            }
+
+            xs[placed] = x;
+            ys[placed] = y;
+            if (background != null) {
+                background.add(placed, x, y);
+            } else {
+                grid.add(placed, x, y);
+            }
+            placer.place(x, y);
+            active[activeCount++] = placed++;
+        }
+    }
+
+    /*
+     * Bridson's background grid: its cells are no wider than minDistance / sqrt(2), so each holds at most one
+     * node, and a check reads a few cells instead of walking lists of nodes
+     */
+    private static final class BackgroundGrid {
+        private static final int EMPTY = -1;
+
+        private final double cellSize;
+        private final int columns, rows;
+        private final int[] cells;
+
+        private BackgroundGrid(double cellSize, int columns, int rows) {
+            this.cellSize = cellSize;
+            this.columns = columns;
+            this.rows = rows;
+            this.cells = new int[columns * rows];
+            Arrays.fill(this.cells, EMPTY);
+        }
+
+        /* Returns null if the area needs more than a few cells per node (e.g. sparse nodes in a large area) */
+        static BackgroundGrid of(double width, double length, double minDistance, int n) {
+            double cellSize = minDistance / Math.sqrt(2) * (1 - 1e-9);
+            long columns = (long) (width / cellSize) + 1;
+            long rows = (long) (length / cellSize) + 1;
+            if (columns * rows > Math.min(MAX_CELLS_PER_NODE * (long) n, Integer.MAX_VALUE - 8)) {
+                return null;
+            }
+            return new BackgroundGrid(cellSize, (int) columns, (int) rows);
+        }
+
+        void add(int point, double x, double y) {
+            int cell = this.row(y) * this.columns + this.column(x);
+            if (this.cells[cell] != EMPTY) {
+                throw new IllegalStateException("Two nodes are closer than the minimum distance!");
+            }
+            this.cells[cell] = point;
+        }
+
+        boolean anyWithin(double x, double y, double radius, double[] xs, double[] ys) {
+            final int fromColumn = this.column(x - radius);
+            final int toColumn = this.column(x + radius);
+            final int toRow = this.row(y + radius);
+            final double radiusSquared = radius * radius;
+
+            int point;
+            double dx, dy;
+            for (int row = this.row(y - radius); row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    point = this.cells[row * this.columns + column];
+                    if (point == EMPTY) {
+                        continue;
+                    }
+                    dx = xs[point] - x;
+                    dy = ys[point] - y;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /* Truncating is enough, since anything below 0 is clamped to the first cell anyway */
+        private int column(double x) {
+            return Math.max(0, Math.min(this.columns - 1, (int) (x / this.cellSize)));
+        }
+
+        private int row(double y) {
+            return Math.max(0, Math.min(this.rows - 1, (int) (y / this.cellSize)));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.grivera.generator.topology;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes the generated nodes to an .sn file as they are placed, without keeping them in memory.
+ * The file has the same format as {@link com.grivera.generator.SensorNetwork#save(String)}.
+ */
+public class SnFileSink implements NodeSink, AutoCloseable {
+
+    private final String fileName;
+    private PrintWriter writer;
+
+    public SnFileSink(String fileName) {
+        this.fileName = fileName;
+    }
+
+    @Override
+    public void begin(TopologySpec spec) {
+        try {
+            this.writer = new PrintWriter(new BufferedWriter(new FileWriter(this.fileName), 1 << 16));
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create \"%s\"!", this.fileName), e);
+        }
+        this.writer.printf("%f %f %f\n", spec.width(), spec.length(), spec.transmissionRange()); // X, Y, Tr
+        this.writer.printf("%d %d\n", spec.dataPacketCount(), spec.storageCapacity()); // q m
+        this.writer.printf("%d %d\n", spec.nodeCount(), spec.batteryCapacity()); // N c
+    }
+
+    @Override
+    public void dataNode(double x, double y, int value) {
+        this.writer.printf("%c %f %f %d\n", 'd', x, y, value);
+    }
+
+    @Override
+    public void storageNode(double x, double y) {
+        this.writer.printf("%c %f %f\n", 's', x, y);
+    }
+
+    @Override
+    public void transitionNode(double x, double y) {
+        this.writer.printf("%c %f %f\n", 't', x, y);
+    }
+
+    @Override
+    public void end() {
+        this.close();
+    }
+
+    @Override
+    public void close() {
+        if (this.writer == null) {
+            return;
+        }
+        this.writer.close();
+        if (this.writer.checkError()) {
+            throw new UncheckedIOException(new IOException(String.format("Failed to write \"%s\"!", this.fileName)));
+        }
+        this.writer = null;
+    }
+}
@@ -0,0 +1,297 @@
+package com.grivera.generator.topology;
+
+import java.util.Arrays;
+
+/**
+ * Measures the degrees and connected components of a network while passing its nodes on to another sink.
+ *
+ * <p>
+ * The nodes must arrive in increasing order of y (e.g. from a {@link UniformSweepGenerator}). Only the
+ * nodes within the transmission range of the newest node, the strip the sweep is in plus its border,
+ * are kept, split in columns as wide as the range. A node's degree is final once the sweep leaves its
+ * range, and a component is final once none of its nodes are left in the window, so the memory used
+ * is proportional to the window rather than to the whole network.
+ * </p>
+ */
+public class SweepStatisticsSink implements NodeSink {
+
+    private static final int NONE = -1;
+
+    private final NodeSink delegate;
+
+    private double range;
+    private double columnWidth;
+    private int columns;
+    private int[] columnHead;
+    private int[] columnTail;
+
+    /* The window is a ring of nodes, addressed by their sequence number */
+    private int mask;
+    private double[] windowX;
+    private double[] windowY;
+    private int[] windowColumn;
+    private int[] windowLabel;
+    private int[] windowDegree;
+    private int[] windowNext;
+    private int first;
+    private int count;
+    private double lastY;
+
+    /* A union-find over component labels, compacted to the live labels whenever it fills up */
+    private int[] labelParent;
+    private int[] labelSize;
+    private int[] labelLive;
+    private int labelCount;
+
+    private long edgeCount;
+    private int minDegree;
+    private int maxDegree;
+    private int isolatedNodes;
+    private int componentCount;
+    private int largestComponent;
+    private int peakWindow;
+    private NetworkStatistics statistics;
+
+    public SweepStatisticsSink(NodeSink delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void begin(TopologySpec spec) {
+        this.range = spec.transmissionRange() + 0.0001;
+        this.columns = (int) Math.max(1, Math.min(1 << 20, Math.floor(spec.width() / this.range)));
+        this.columnWidth = spec.width() / this.columns;
+        this.columnHead = new int[this.columns];
+        this.columnTail = new int[this.columns];
+        Arrays.fill(this.columnHead, NONE);
+        Arrays.fill(this.columnTail, NONE);
+
+        this.first = this.count = 0;
+        this.allocateWindow(64);
+        this.lastY = Double.NEGATIVE_INFINITY;
+
+        this.labelParent = new int[64];
+        this.labelSize = new int[64];
+        this.labelLive = new int[64];
+        this.labelCount = 0;
+
+        this.edgeCount = 0;
+        this.minDegree = Integer.MAX_VALUE;
+        this.maxDegree = 0;
+        this.isolatedNodes = this.componentCount = this.largestComponent = this.peakWindow = 0;
+        this.statistics = null;
+
+        this.delegate.begin(spec);
+    }
+
+    @Override
+    public void dataNode(double x, double y, int value) {
+        this.visit(x, y);
+        this.delegate.dataNode(x, y, value);
+    }
+
+    @Override
+    public void storageNode(double x, double y) {
+        this.visit(x, y);
+        this.delegate.storageNode(x, y);
+    }
+
+    @Override
+    public void transitionNode(double x, double y) {
+        this.visit(x, y);
+        this.delegate.transitionNode(x, y);
+    }
+
+    @Override
+    public void end() {
+        while (this.first < this.count) {
+            this.evict();
+        }
+        this.statistics = new NetworkStatistics(this.count, this.edgeCount, this.count == 0 ? 0 : this.minDegree,
+                this.maxDegree, this.isolatedNodes, this.componentCount, this.largestComponent, this.peakWindow);
+        this.delegate.end();
+    }
+
+    /**
+     * Returns the statistics of the network.
+     *
+     * @return the statistics of every node that was passed on
+     * @throws IllegalStateException if the network is not finished yet
+     */
+    public NetworkStatistics getStatistics() {
+        if (this.statistics == null) {
+            throw new IllegalStateException("The network is not finished yet!");
+        }
+        return this.statistics;
+    }
+
+    private void visit(double x, double y) {
+        if (y < this.lastY) {
+            throw new IllegalStateException("A SweepStatisticsSink needs the nodes in increasing order of y!");
+        }
+        this.lastY = y;
+
+        /* Every node that is out of range of this one is out of range of every later one */
+        while (this.first < this.count && this.windowY[this.first & this.mask] < y - this.range) {
+            this.evict();
+        }
+
+        if (this.count - this.first > this.mask) {
+            this.allocateWindow(2 * (this.mask + 1));
+        }
+        if (this.labelCount == this.labelParent.length) {
+            this.compactLabels();
+        }
+
+        int sequence = this.count++;
+        int slot = sequence & this.mask;
+        int column = (int) Math.max(0, Math.min(this.columns - 1, Math.floor(x / this.columnWidth)));
+        int label = this.labelCount++;
+        this.labelParent[label] = label;
+        this.labelSize[label] = 1;
+        this.labelLive[label] = 1;
+
+        this.windowX[slot] = x;
+        this.windowY[slot] = y;
+        this.windowColumn[slot] = column;
+        this.windowLabel[slot] = label;
+        this.windowDegree[slot] = 0;
+        this.windowNext[slot] = NONE;
+
+        /* Columns are at least as wide as the range, so only the neighbouring columns can hold neighbours */
+        final double rangeSquared = this.range * this.range;
+        int other;
+        double dx, dy;
+        for (int c = Math.max(0, column - 1); c <= Math.min(this.columns - 1, column + 1); c++) {
+            for (int s = this.columnHead[c]; s != NONE; s = this.windowNext[s & this.mask]) {
+                other = s & this.mask;
+                dx = this.windowX[other] - x;
+                dy = this.windowY[other] - y;
+                if (dx * dx + dy * dy <= rangeSquared) {
+                    this.windowDegree[slot]++;
+                    this.windowDegree[other]++;
+                    this.edgeCount++;
+                    this.union(label, this.windowLabel[other]);
+                }
+            }
+        }
+
+        if (this.columnTail[column] == NONE) {
+            this.columnHead[column] = sequence;
+        } else {
+            this.windowNext[this.columnTail[column] & this.mask] = sequence;
+        }
+        this.columnTail[column] = sequence;
+        this.peakWindow = Math.max(this.peakWindow, this.count - this.first);
+    }
+
+    /* Finalizes the oldest node of the window, which is also the oldest node of its column */
+    private void evict() {
+        int slot = this.first & this.mask;
+        int column = this.windowColumn[slot];
+        this.columnHead[column] = this.windowNext[slot];
+        if (this.columnHead[column] == NONE) {
+            this.columnTail[column] = NONE;
+        }
+
+        int degree = this.windowDegree[slot];
+        this.minDegree = Math.min(this.minDegree, degree);
+        this.maxDegree = Math.max(this.maxDegree, degree);
+        if (degree == 0) {
+            this.isolatedNodes++;
+        }
+
+        int root = this.find(this.windowLabel[slot]);
+        if (--this.labelLive[root] == 0) {
+            this.componentCount++;
+            this.largestComponent = Math.max(this.largestComponent, this.labelSize[root]);
+        }
+        this.first++;
+    }
+
+    private int find(int label) {
+        int[] parent = this.labelParent;
+        while (parent[label] != label) {
+            parent[label] = parent[parent[label]];
+            label = parent[label];
+        }
+        return label;
+    }
+
+    private void union(int a, int b) {
+        int rootA = this.find(a);
+        int rootB = this.find(b);
+        if (rootA == rootB) {
+            return;
+        }
+        if (this.labelSize[rootA] < this.labelSize[rootB]) {
+            int tmp = rootA;
+            rootA = rootB;
+            rootB = tmp;
+        }
+        this.labelParent[rootB] = rootA;
+        this.labelSize[rootA] += this.labelSize[rootB];
+        this.labelLive[rootA] += this.labelLive[rootB];
+    }
+
+    /* Relabels the components that still have nodes in the window, forgetting the finished ones */
+    private void compactLabels() {
+        int live = this.count - this.first;
+        int capacity = Math.max(64, 4 * (live + 1));
+        int[] relabel = new int[this.labelCount];
+        Arrays.fill(relabel, NONE);
+        int[] parent = new int[capacity];
+        int[] size = new int[capacity];
+        int[] liveCount = new int[capacity];
+
+        int labels = 0;
+        int slot, root;
+        for (int sequence = this.first; sequence < this.count; sequence++) {
+            slot = sequence & this.mask;
+            root = this.find(this.windowLabel[slot]);
+            if (relabel[root] == NONE) {
+                relabel[root] = labels;
+                parent[labels] = labels;
+                size[labels] = this.labelSize[root];
+                liveCount[labels] = this.labelLive[root];
+                labels++;
+            }
+            this.windowLabel[slot] = relabel[root];
+        }
+
+        this.labelParent = parent;
+        this.labelSize = size;
+        this.labelLive = liveCount;
+        this.labelCount = labels;
+    }
+
+    private void allocateWindow(int capacity) {
+        int newMask = capacity - 1;
+        double[] x = new double[capacity];
+        double[] y = new double[capacity];
+        int[] column = new int[capacity];
+        int[] label = new int[capacity];
+        int[] degree = new int[capacity];
+        int[] next = new int[capacity];
+
+        int from, to;
+        for (int sequence = this.first; sequence < this.count; sequence++) {
+            from = sequence & this.mask;
+            to = sequence & newMask;
+            x[to] = this.windowX[from];
+            y[to] = this.windowY[from];
+            column[to] = this.windowColumn[from];
+            label[to] = this.windowLabel[from];
+            degree[to] = this.windowDegree[from];
+            next[to] = this.windowNext[from];
+        }
+
+        this.mask = newMask;
+        this.windowX = x;
+        this.windowY = y;
+        this.windowColumn = column;
+        this.windowLabel = label;
+        this.windowDegree = degree;
+        this.windowNext = next;
+    }
+}
@@ -0,0 +1,22 @@
+package com.grivera.generator.topology;
+
+/**
+ * Places the nodes of a network.
+ *
+ * <p>
+ * Unless documented otherwise, a generator gives back a connected network by construction (no
+ * rejection sampling). Every generator only depends on its seed, so the same seed always gives
+ * the same network.
+ * </p>
+ */
+public interface TopologyGenerator {
+
+    /**
+     * Generates the nodes of a network and streams them into a sink.
+     *
+     * @param spec the parameters of the network
+     * @param seed the seed of the generator
+     * @param sink receives every node as soon as it is placed
+     */
+    void generate(TopologySpec spec, long seed, NodeSink sink);
+}
@@ -0,0 +1,34 @@
+package com.grivera.generator.topology;
+
+/**
+ * The parameters of a network to generate, matching the parameters of
+ * {@link com.grivera.generator.SensorNetwork#SensorNetwork(double, double, int, double, int, int, int, int, int, int, int)}.
+ *
+ * @param width             the width of the network (in meters)
+ * @param length            the length of the network (in meters)
+ * @param nodeCount         the number of nodes
+ * @param transmissionRange the transmission range of the nodes (in meters)
+ * @param dataNodeCount     the number of Data Nodes
+ * @param dataPacketCount   the number of data packets each Data Node has
+ * @param storageNodeCount  the number of Storage Nodes
+ * @param storageCapacity   the storage capacity of each Storage Node
+ * @param batteryCapacity   the battery capacity of each node (in micro Joules)
+ * @param lowestValue       the minimum value of a data packet (inclusive)
+ * @param highestValue      the maximum value of a data packet (inclusive)
+ */
+public record TopologySpec(double width, double length, int nodeCount, double transmissionRange,
+                           int dataNodeCount, int dataPacketCount, int storageNodeCount, int storageCapacity,
+                           int batteryCapacity, int lowestValue, int highestValue) {
+
+    public TopologySpec {
+        if (width <= 0 || length <= 0 || transmissionRange <= 0) {
+            throw new IllegalArgumentException("The size and transmission range of a network must be positive!");
+        }
+        if (nodeCount < 1 || dataNodeCount < 0 || storageNodeCount < 0 || dataNodeCount + storageNodeCount > nodeCount) {
+            throw new IllegalArgumentException("Invalid SensorNetwork constructor parameters");
+        }
+        if (lowestValue > highestValue) {
+            throw new IllegalArgumentException("The lowest packet value cannot be above the highest packet value!");
+        }
+    }
+}
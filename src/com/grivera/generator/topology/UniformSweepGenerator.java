@@ -0,0 +1,34 @@
+package com.grivera.generator.topology;
+
+import java.util.SplittableRandom;
+
+/**
+ * Places nodes uniformly at random, like
+ * {@link com.grivera.generator.SensorNetwork#SensorNetwork(double, double, int, double, int, int, int, int, int, int, int)},
+ * but in increasing order of y and without holding any of them in memory.
+ *
+ * <p>
+ * The y coordinates are drawn directly as sorted uniform numbers, so the nodes come out strip by strip
+ * across the area. Paired with a {@link SweepStatisticsSink}, this writes networks far larger than the
+ * heap while measuring them. Unlike the other generators, the network is NOT connected by construction.
+ * </p>
+ */
+public class UniformSweepGenerator extends AbstractTopologyGenerator {
+
+    @Override
+    protected void place(TopologySpec spec, SplittableRandom rand, Placer placer) {
+        final int n = spec.nodeCount();
+        final double width = spec.width();
+        final double length = spec.length();
+
+        /*
+         * The largest of k uniform numbers is distributed as U^(1/k), so multiplying these
+         * gives n uniform numbers from the largest down (kept as a log to avoid underflow).
+         */
+        double logLargest = 0;
+        for (int k = n; k >= 1; k--) {
+            logLargest += Math.log(1 - rand.nextDouble()) / k;
+            placer.place(width * rand.nextDouble(), length * (1 - Math.exp(logLargest)));
+        }
+    }
+}
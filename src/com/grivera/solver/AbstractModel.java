@@ -4,6 +4,8 @@ import com.grivera.generator.sensors.DataNode;
 import com.grivera.generator.Network;
 import com.grivera.generator.SensorNetwork;
 
+import java.io.PrintStream;
+
 public abstract class AbstractModel implements Model {
     private final Network network;
     private boolean hasRan;
@@ -24,8 +26,7 @@ public abstract class AbstractModel implements Model {
     @Override
     public void run() {
         this.hasRan = true;
-        this.network.resetPackets();
-        this.network.resetEnergy();
+        this.network.resetState();
     }
 
     public void run(int episodes) {
@@ -33,8 +34,7 @@ public abstract class AbstractModel implements Model {
             throw new IllegalArgumentException("Episodes count cannot be negative!");
         }
         this.hasRan = true;
-        this.network.resetPackets();
-        this.network.resetEnergy();
+        this.network.resetState();
     }
 
     @Override
@@ -71,6 +71,11 @@ public abstract class AbstractModel implements Model {
 
     @Override
     public void printRoute() {
+        this.printRoute(System.out);
+    }
+
+    @Override
+    public void printRoute(PrintStream out) {
         if (!this.hasRan) {
             throw new IllegalStateException("Cannot get the route before running the model!");
         }
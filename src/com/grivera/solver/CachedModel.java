@@ -0,0 +1,139 @@
+package com.grivera.solver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wraps a model so that its results are looked up in (and stored into) a {@link ResultCache}
+ * instead of re-running it on a network it has already solved.
+ */
+public class CachedModel implements Model {
+
+    private final AbstractModel model;
+    private final ResultCache cache;
+    private final String name;
+    private final boolean keepRoutes;
+    private ModelResult result;
+    private boolean fromCache;
+
+    public CachedModel(AbstractModel model, ResultCache cache) {
+        this(model, cache, model.getClass().getName(), false);
+    }
+
+    /**
+     * @param model      the model to run on a cache miss
+     * @param cache      the cache to use
+     * @param name       the name identifying the model (and its settings) in the cache
+     * @param keepRoutes whether to also cache the routes of the model
+     */
+    public CachedModel(AbstractModel model, ResultCache cache, String name, boolean keepRoutes) {
+        this.model = model;
+        this.cache = cache;
+        this.name = name;
+        this.keepRoutes = keepRoutes;
+    }
+
+    public String getKey() {
+        return ResultCache.keyOf(this.model.getNetwork(), this.name);
+    }
+
+    /**
+     * Tests whether running this model would be answered from the cache.
+     *
+     * @return true if and only if the result of this model is cached; otherwise false
+     */
+    public boolean isCached() {
+        ModelResult cached = this.cache.get(this.getKey());
+        return cached != null && (!this.keepRoutes || cached.hasRoutes());
+    }
+
+    /**
+     * Tests whether the last run was answered from the cache.
+     *
+     * @return true if and only if the last run did not run the wrapped model
+     */
+    public boolean isFromCache() {
+        return this.fromCache;
+    }
+
+    @Override
+    public void run() {
+        String key = this.getKey();
+        ModelResult cached = this.cache.get(key);
+        if (cached != null && (!this.keepRoutes || cached.hasRoutes())) {
+            this.result = cached;
+            this.fromCache = true;
+            return;
+        }
+
+        this.model.run();
+        this.fromCache = false;
+        this.result = ModelResult.of(this.model);
+        if (this.keepRoutes) {
+            ByteArrayOutputStream routes = new ByteArrayOutputStream();
+            this.model.printRoute(new PrintStream(routes, true, StandardCharsets.UTF_8));
+            this.result = this.result.withRoutes(routes.toString(StandardCharsets.UTF_8));
+        }
+        this.cache.put(key, this.result);
+    }
+
+    @Override
+    public void run(int episodes) {
+        if (episodes < 1) {
+            throw new IllegalArgumentException("Episodes count cannot be negative!");
+        }
+        this.run();
+    }
+
+    public ModelResult getResult() {
+        this.checkRan();
+        return this.result;
+    }
+
+    @Override
+    public int getTotalValue() {
+        return this.getResult().totalValue();
+    }
+
+    @Override
+    public int getTotalCost() {
+        return this.getResult().totalCost();
+    }
+
+    @Override
+    public int getTotalProfit() {
+        return this.getResult().totalProfit();
+    }
+
+    @Override
+    public int getTotalPackets() {
+        return this.getResult().totalPackets();
+    }
+
+    @Override
+    public void printRoute() {
+        this.printRoute(System.out);
+    }
+
+    @Override
+    public void printRoute(PrintStream out) {
+        this.checkRan();
+        if (this.result.hasRoutes()) {
+            out.print(this.result.routes());
+            return;
+        }
+
+        /* Routes were not cached, so the wrapped model has to be ran to print them */
+        if (!this.model.hasRan()) {
+            this.model.run();
+        }
+        this.model.printRoute(out);
+    }
+
+    private void checkRan() {
+        if (this.result == null) {
+            throw new IllegalStateException("Cannot get the results before running the model!");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.grivera.solver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds the number of CS2 processes that may run at the same time.
+ *
+ * <p>
+ * Every {@link PMPCs2Model} starts its CS2 process through a pool, so any number of
+ * models can be run from any number of threads while only {@code maxProcesses}
+ * CS2 instances are alive at once.
+ * </p>
+ */
+public class Cs2ProcessPool implements AutoCloseable {
+
+    private static Cs2ProcessPool defaultPool;
+
+    private final int maxProcesses;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    public Cs2ProcessPool() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public Cs2ProcessPool(int maxProcesses) {
+        if (maxProcesses < 1) {
+            throw new IllegalArgumentException("A CS2 process pool needs at least one process!");
+        }
+        this.maxProcesses = maxProcesses;
+        this.permits = new Semaphore(maxProcesses, true);
+        this.executor = Executors.newFixedThreadPool(maxProcesses, r -> {
+            Thread thread = new Thread(r, "cs2-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns the pool shared by every {@link PMPCs2Model} that was not given its own pool.
+     *
+     * @return the shared CS2 process pool (one process per available processor)
+     */
+    public static synchronized Cs2ProcessPool getDefault() {
+        if (defaultPool == null) {
+            defaultPool = new Cs2ProcessPool();
+        }
+        return defaultPool;
+    }
+
+    public int getMaxProcesses() {
+        return this.maxProcesses;
+    }
+
+    /**
+     * Starts a process once a slot in the pool is free. The slot is given back as soon
+     * as the process exits.
+     *
+     * @param builder the process to start
+     * @return the started process
+     * @throws IOException          if the process could not be started
+     * @throws InterruptedException if interrupted while waiting for a free slot
+     */
+    public Process start(ProcessBuilder builder) throws IOException, InterruptedException {
+        this.permits.acquire();
+        Process process;
+        try {
+            process = builder.start();
+        } catch (IOException | RuntimeException e) {
+            this.permits.release();
+            throw e;
+        }
+        process.onExit().thenRun(this.permits::release);
+        return process;
+    }
+
+    /**
+     * Runs the given model on the pool.
+     *
+     * @param model the model to run
+     * @return a future that completes with the model once it has ran
+     */
+    public <T extends Model> Future<T> submit(T model) {
+        return this.executor.submit(() -> {
+            model.run();
+            return model;
+        });
+    }
+
+    /**
+     * Runs all the given models concurrently and waits for them to finish.
+     *
+     * @param models the models to run
+     * @return the models in the same order they were given
+     */
+    public <T extends Model> List<T> runAll(Collection<T> models) {
+        List<Future<T>> futures = new ArrayList<>(models.size());
+        for (T model : models) {
+            futures.add(this.submit(model));
+        }
+
+        List<T> ran = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                ran.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Interrupted while running CS2 models!", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException(String.format("CS2 model failed: %s", e.getCause().getMessage()), e.getCause());
+        }
+        return ran;
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+    }
+}
@@ -2,21 +2,19 @@ package com.grivera.solver;
 
 import com.grivera.generator.Network;
 import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.NetworkState;
+import com.grivera.generator.sensors.NodeStore;
 import com.grivera.generator.sensors.SensorNode;
 import com.grivera.generator.sensors.StorageNode;
 import com.grivera.util.Doubles;
 import com.grivera.util.MathUtil;
-import com.grivera.util.Pair;
 import com.grivera.util.Tuple;
 
+import java.io.PrintStream;
 import java.util.ArrayDeque;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.StringJoiner;
-import java.util.LinkedHashMap;
 
 //imports for google OR-tools
 import com.google.ortools.Loader;
@@ -30,7 +28,7 @@ public class ILPWeightedModel extends AbstractModel {
     private int cachedObjective;
     private int totalCost;
     private int totalPackets;
-    private Map<SensorNode, List<Pair<List<SensorNode>, Integer>>> history;
+    private RouteStore history;
 
     public ILPWeightedModel(Network network) {
         super(network);
@@ -173,21 +171,19 @@ public class ILPWeightedModel extends AbstractModel {
         // in our work we don't consider the storage cost, so its just one constraint
         //
         // Er_i + sum(x_j"i') + Et_i * sum(x_i"j') <= E_i
-        MPConstraint[] eight = new MPConstraint[nodes.size()];
-        constraintIndex = 0;
-        for (SensorNode sn : nodes) {
-            eight[constraintIndex] = solver.makeConstraint(-infinity, sn.getEnergy());
-            // for (SensorNode snp : this.nodes) {
-            for (SensorNode snp : network.getNeighbors(sn)) {
-                // if (snp.equals(sn)) {
-                    // continue;
-                // }
-                
-                eight[constraintIndex].setCoefficient(x[snp.getUuid() + n][sn.getUuid()], sn.calculateReceivingCost());
-                eight[constraintIndex].setCoefficient(x[sn.getUuid() + n][snp.getUuid()], sn.calculateTransmissionCost(snp));
-
+        NodeStore store = network.getNodeStore();
+        MPConstraint[] eight = new MPConstraint[store.size()];
+        int receivingCost = store.getReceivingCost();
+        int index;
+        int neighborUuid;
+        for (int uuid = 1; uuid <= store.size(); uuid++) {
+            index = store.getIndexOfUuid(uuid);
+            eight[index] = solver.makeConstraint(-infinity, network.getState().getEnergy(index));
+            for (int edge = store.getEdgeStart(index); edge < store.getEdgeEnd(index); edge++) {
+                neighborUuid = store.getUuid(store.getEdgeTarget(edge));
+                eight[index].setCoefficient(x[neighborUuid + n][uuid], receivingCost);
+                eight[index].setCoefficient(x[uuid + n][neighborUuid], store.getTransmissionCost(edge));
             }
-            constraintIndex++;
         }
 
         // set Objective, (maximize flow from source to data in nodes)
@@ -405,14 +401,14 @@ public class ILPWeightedModel extends AbstractModel {
         this.totalCost = 0;
         for (SensorNode node1 : nodes) {
             for (SensorNode node2 : nodes) {
-                if (node1.equals(node2)) {
+                if (node1.equals(node2) || this.cachedX[node1.getUuid() + n][node2.getUuid()] == 0) {
                     continue;
                 }
                 this.totalCost += this.cachedX[node1.getUuid() + n][node2.getUuid()] * network.calculateMinCost(node1, node2);
             }
         }
 
-        this.history = new LinkedHashMap<>();
+        this.history = new RouteStore(network);
         int flowEdge;
         int packetEdge;
         int storeEdge;
@@ -428,8 +424,7 @@ public class ILPWeightedModel extends AbstractModel {
                     continue;
                 }
 
-                this.history.putIfAbsent(dn, new ArrayList<>());
-                this.history.get(dn).add(Pair.of(List.of(dn, sn), sentPackets));
+                this.history.add(this.history.extend(this.history.start(dn.getIndex()), sn.getIndex()), sentPackets);
 
                 this.cachedX[sourceIndex][dn.getUuid()] -= sentPackets;
                 this.cachedX[dn.getUuid() + n][sn.getUuid()] -= sentPackets;
@@ -438,30 +433,25 @@ public class ILPWeightedModel extends AbstractModel {
         }
 
         // Run a BFS to find shortest paths of flow for each packet
-        Queue<Tuple<List<SensorNode>, Integer, Integer>> q = new ArrayDeque<>();
-        List<SensorNode> tmpPath;
+        final NetworkState state = network.getState();
+        Queue<Tuple<Integer, Integer, Integer>> q = new ArrayDeque<>();
         for (DataNode dn : dns) {
-            tmpPath = new ArrayList<>();
-            tmpPath.add(dn);
-            q.offer(Tuple.of(tmpPath, this.cachedX[sourceIndex][dn.getUuid()], dn.getOverflowPacketValue()));
+            q.offer(Tuple.of(this.history.start(dn.getIndex()), this.cachedX[sourceIndex][dn.getUuid()], dn.getOverflowPacketValue()));
             this.cachedX[sourceIndex][dn.getUuid()] = 0;
         }
 
-        Tuple<List<SensorNode>, Integer, Integer> currTuple;
-        List<SensorNode> currPath;
-        SensorNode currStart;
+        Tuple<Integer, Integer, Integer> currTuple;
+        int currPath;
         SensorNode currNode;
         int currValue;
 
         Set<SensorNode> neighbors;
         int packetsToSend;
         int packetsToStore;
-        List<SensorNode> newPath;
         while (!q.isEmpty()) {
             currTuple = q.poll();
             currPath = currTuple.first();
-            currStart = currPath.getFirst();
-            currNode = currPath.getLast();
+            currNode = state.getNode(this.history.getLast(currPath));
             packetsToSend = currTuple.second();
             currValue = currTuple.third();
             if (packetsToSend <= 0) {
@@ -474,9 +464,7 @@ public class ILPWeightedModel extends AbstractModel {
             if (packetsToStore > 0) {
                 this.cachedX[currNode.getUuid() + n][sinkIndex] -= packetsToStore;
                 packetsToSend -= packetsToStore;
-
-                this.history.putIfAbsent(currStart, new ArrayList<>());
-                this.history.get(currStart).add(Pair.of(new ArrayList<>(currPath), packetsToStore));
+                this.history.add(currPath, packetsToStore);
             }
 
             neighbors = network.getNeighbors(currNode);
@@ -488,9 +476,7 @@ public class ILPWeightedModel extends AbstractModel {
                     continue;
                 }
 
-                newPath = new ArrayList<>(currPath);
-                newPath.add(neighbor);
-                q.offer(Tuple.of(newPath, sentPackets, currValue));
+                q.offer(Tuple.of(this.history.extend(currPath, neighbor.getIndex()), sentPackets, currValue));
 
                 packetsToSend -= sentPackets;
                 this.cachedX[currNode.getUuid() + n][neighbor.getUuid()] -= sentPackets;
@@ -500,33 +486,8 @@ public class ILPWeightedModel extends AbstractModel {
     }
 
     @Override
-    public void printRoute() {
-        super.printRoute();
-        
-        SensorNode start;
-        List<SensorNode> route;
-        int flow;
-        StringJoiner str;
-        for (Map.Entry<SensorNode, List<Pair<List<SensorNode>, Integer>>> entry : this.history.entrySet()) {
-            start = entry.getKey();
-            for (Pair<List<SensorNode>, Integer> pair : entry.getValue()) {
-                route = pair.first();
-                flow = pair.second();
-                if (flow < 0) {
-                    throw new IllegalStateException(String.format("Flow from %s -> %s is negative", route.getFirst(), route.getLast()));
-                }
-                if (flow == 0) {
-                    continue;
-                }
-
-                str = new StringJoiner(" -> ", "[", "]");
-                for (SensorNode node : route) {
-                    str.add(node.getName());
-                }
-
-                System.out.printf("%s -> %s (flow = %d)\n", start.getName(), route.getLast().getName(), flow);
-                System.out.printf("\t%s\n", str);
-            }
-        }
+    public void printRoute(PrintStream out) {
+        super.printRoute(out);
+        this.history.printRoutes(out);
     }
 }
\ No newline at end of file
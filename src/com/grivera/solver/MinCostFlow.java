@@ -0,0 +1,297 @@
+package com.grivera.solver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A min-cost flow solver using Goldberg's cost-scaling push-relabel algorithm
+ * (the same algorithm that CS2 implements), stored entirely in primitive arrays.
+ *
+ * <p>
+ * Nodes are numbered from 0 to n - 1. Arcs are added with {@link #addArc(int, int, int, int, long)}
+ * and node supplies (positive) and demands (negative) with {@link #setSupply(int, long)}.
+ * </p>
+ */
+public class MinCostFlow {
+
+    private static final int ALPHA = 8;
+    private static final int INITIAL_ARCS = 16;
+
+    private final int n;
+    private final long[] supply;
+
+    /* Residual graph, arc a and a ^ 1 are each other's reverse */
+    private final int[] head;
+    private int[] next;
+    private int[] to;
+    private long[] residual;
+    private long[] cost;
+    private long[] lowerBound;
+    private int arcCount;
+
+    private long[] price;
+    private long[] excess;
+    private int[] currentArc;
+
+    public MinCostFlow(int nodes) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("A flow network needs at least one node!");
+        }
+        this.n = nodes;
+        this.supply = new long[nodes];
+        this.head = new int[nodes];
+        Arrays.fill(this.head, -1);
+        this.next = new int[INITIAL_ARCS];
+        this.to = new int[INITIAL_ARCS];
+        this.residual = new long[INITIAL_ARCS];
+        this.cost = new long[INITIAL_ARCS];
+        this.lowerBound = new long[INITIAL_ARCS / 2];
+    }
+
+    /**
+     * Reads a min-cost flow problem in the <b>DIMAC</b> format used by CS2.
+     *
+     * @param fileName the path to the .inp file
+     * @return the min-cost flow problem described by the file
+     */
+    public static MinCostFlow fromDimacs(String fileName) {
+        File file = new File(fileName);
+        if (!file.exists()) {
+            throw new IllegalArgumentException(String.format("File \"%s\" doesn't exist!", fileName));
+        }
+
+        MinCostFlow flow = null;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String[] lineSplit;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                lineSplit = line.trim().split("\\s+");
+                switch (lineSplit[0].charAt(0)) {
+                    case 'p' -> flow = new MinCostFlow(Integer.parseInt(lineSplit[2]) + 1);
+                    case 'n' -> requireProblem(flow, line).setSupply(Integer.parseInt(lineSplit[1]), Long.parseLong(lineSplit[2]));
+                    case 'a' -> requireProblem(flow, line).addArc(
+                            Integer.parseInt(lineSplit[1]), Integer.parseInt(lineSplit[2]),
+                            Integer.parseInt(lineSplit[3]), Integer.parseInt(lineSplit[4]),
+                            Long.parseLong(lineSplit[5])
+                    );
+                    case 'c' -> { /* Comment */ }
+                    default -> throw new IllegalArgumentException(String.format("Invalid line: %s", line));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid file provided: " + e.getMessage());
+        }
+        return requireProblem(flow, "<end of file>");
+    }
+
+    private static MinCostFlow requireProblem(MinCostFlow flow, String line) {
+        if (flow == null) {
+            throw new IllegalArgumentException(String.format("Missing problem line before: %s", line));
+        }
+        return flow;
+    }
+
+    public int getNodeCount() {
+        return this.n;
+    }
+
+    public int getArcCount() {
+        return this.arcCount / 2;
+    }
+
+    public void setSupply(int node, long amount) {
+        this.supply[node] = amount;
+    }
+
+    /**
+     * Adds an arc to the flow network.
+     *
+     * @param from       the tail of the arc
+     * @param to         the head of the arc
+     * @param lowerBound the minimum flow along the arc
+     * @param upperBound the maximum flow along the arc
+     * @param cost       the cost per unit of flow
+     * @return the id of the arc (used by {@link #getFlow(int)})
+     */
+    public int addArc(int from, int to, int lowerBound, int upperBound, long cost) {
+        if (lowerBound > upperBound) {
+            throw new IllegalArgumentException(String.format("Arc %d -> %d has a lower bound above its upper bound", from, to));
+        }
+        if (this.arcCount + 2 > this.to.length) {
+            int capacity = this.to.length * 2;
+            this.next = Arrays.copyOf(this.next, capacity);
+            this.to = Arrays.copyOf(this.to, capacity);
+            this.residual = Arrays.copyOf(this.residual, capacity);
+            this.cost = Arrays.copyOf(this.cost, capacity);
+            this.lowerBound = Arrays.copyOf(this.lowerBound, capacity / 2);
+        }
+
+        int id = this.arcCount / 2;
+        this.lowerBound[id] = lowerBound;
+        this.link(from, to, upperBound - lowerBound, cost);
+        this.link(to, from, 0, -cost);
+
+        /* Lower bounds are always sent, which moves supply from the tail to the head */
+        this.supply[from] -= lowerBound;
+        this.supply[to] += lowerBound;
+        return id;
+    }
+
+    private void link(int from, int to, long capacity, long cost) {
+        int arc = this.arcCount++;
+        this.to[arc] = to;
+        this.residual[arc] = capacity;
+        this.cost[arc] = cost;
+        this.next[arc] = this.head[from];
+        this.head[from] = arc;
+    }
+
+    /**
+     * Returns the flow along an arc after {@link #solve()} has been called.
+     *
+     * @param arcId the id returned by {@link #addArc(int, int, int, int, long)}
+     * @return the flow along the arc
+     */
+    public long getFlow(int arcId) {
+        return this.lowerBound[arcId] + this.residual[2 * arcId + 1];
+    }
+
+    /**
+     * Finds a min-cost flow that satisfies all supplies and demands.
+     *
+     * @return the total cost of the flow
+     * @throws IllegalStateException if no feasible flow exists
+     */
+    public long solve() {
+        long total = 0;
+        for (long s : this.supply) {
+            total += s;
+        }
+        if (total != 0) {
+            throw new IllegalStateException(String.format("Supplies and demands do not balance (off by %d)", total));
+        }
+
+        /* Scale costs by (n + 1) so that a 1-optimal flow is optimal for the original costs */
+        final long scale = this.n + 1;
+        long maxCost = 1;
+        for (int arc = 0; arc < this.arcCount; arc++) {
+            this.cost[arc] *= scale;
+            maxCost = Math.max(maxCost, Math.abs(this.cost[arc]));
+        }
+
+        this.price = new long[this.n];
+        this.excess = this.supply.clone();
+        this.currentArc = new int[this.n];
+
+        try {
+            long epsilon = maxCost;
+            do {
+                epsilon = Math.max(1, epsilon / ALPHA);
+                this.refine(epsilon);
+            } while (epsilon > 1);
+        } finally {
+            for (int arc = 0; arc < this.arcCount; arc++) {
+                this.cost[arc] /= scale;
+            }
+        }
+
+        long totalCost = 0;
+        for (int arc = 0; arc < this.arcCount; arc += 2) {
+            totalCost += this.getFlow(arc / 2) * this.cost[arc];
+        }
+        return totalCost;
+    }
+
+    private void refine(long epsilon) {
+        /* Saturate every residual arc with a negative reduced cost */
+        int v;
+        long delta;
+        for (int u = 0; u < this.n; u++) {
+            for (int arc = this.head[u]; arc != -1; arc = this.next[arc]) {
+                if (this.residual[arc] > 0 && this.reducedCost(u, arc) < 0) {
+                    delta = this.residual[arc];
+                    v = this.to[arc];
+                    this.residual[arc] = 0;
+                    this.residual[arc ^ 1] += delta;
+                    this.excess[u] -= delta;
+                    this.excess[v] += delta;
+                }
+            }
+        }
+
+        /* FIFO queue of active nodes (positive excess) */
+        int[] queue = new int[this.n];
+        boolean[] queued = new boolean[this.n];
+        int qHead = 0;
+        int qSize = 0;
+        for (int u = 0; u < this.n; u++) {
+            this.currentArc[u] = this.head[u];
+            if (this.excess[u] > 0) {
+                queue[(qHead + qSize++) % this.n] = u;
+                queued[u] = true;
+            }
+        }
+
+        /* Prices can only drop a bounded amount during one refine, unless no feasible flow exists */
+        final long[] startPrice = this.price.clone();
+        final long maxDrop = 3L * (this.n + 1) * epsilon * ALPHA;
+
+        int u;
+        int arc;
+        while (qSize > 0) {
+            u = queue[qHead];
+            qHead = (qHead + 1) % this.n;
+            qSize--;
+            queued[u] = false;
+
+            while (this.excess[u] > 0) {
+                arc = this.currentArc[u];
+                if (arc == -1) {
+                    this.relabel(u, epsilon);
+                    if (startPrice[u] - this.price[u] > maxDrop) {
+                        throw new IllegalStateException("The flow network has no feasible flow!");
+                    }
+                    continue;
+                }
+
+                if (this.residual[arc] > 0 && this.reducedCost(u, arc) < 0) {
+                    v = this.to[arc];
+                    delta = Math.min(this.excess[u], this.residual[arc]);
+                    this.residual[arc] -= delta;
+                    this.residual[arc ^ 1] += delta;
+                    this.excess[u] -= delta;
+                    this.excess[v] += delta;
+                    if (this.excess[v] > 0 && !queued[v]) {
+                        queue[(qHead + qSize++) % this.n] = v;
+                        queued[v] = true;
+                    }
+                } else {
+                    this.currentArc[u] = this.next[arc];
+                }
+            }
+        }
+    }
+
+    private void relabel(int u, long epsilon) {
+        long best = Long.MIN_VALUE;
+        for (int arc = this.head[u]; arc != -1; arc = this.next[arc]) {
+            if (this.residual[arc] > 0) {
+                best = Math.max(best, this.price[this.to[arc]] - this.cost[arc]);
+            }
+        }
+        if (best == Long.MIN_VALUE) {
+            throw new IllegalStateException("The flow network has no feasible flow!");
+        }
+        this.price[u] = best - epsilon;
+        this.currentArc[u] = this.head[u];
+    }
+
+    private long reducedCost(int u, int arc) {
+        return this.cost[arc] + this.price[u] - this.price[this.to[arc]];
+    }
+}
@@ -1,5 +1,7 @@
 package com.grivera.solver;
 
+import java.io.PrintStream;
+
 public interface Model {
     void run();
     void run(int episodes);
@@ -8,4 +10,5 @@ public interface Model {
     int getTotalProfit();
     int getTotalPackets();
     void printRoute();
+    void printRoute(PrintStream out);
 }
\ No newline at end of file
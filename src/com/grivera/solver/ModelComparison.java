@@ -0,0 +1,225 @@
+package com.grivera.solver;
+
+import com.grivera.generator.Network;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Runs several models side by side on one network.
+ *
+ * <p>
+ * Every model runs concurrently on its own {@link Network#fork() fork} of the network, so the models
+ * never see each other's energy or packets and the wall time approaches that of the slowest model.
+ * The results are collected with their timings and their optimality gaps relative to the most
+ * profitable model.
+ * </p>
+ */
+public class ModelComparison {
+
+    private final Network network;
+    private final Map<String, Function<Network, ? extends Model>> models;
+    private final ExecutorService executor;
+
+    public ModelComparison(Network network) {
+        this(network, null);
+    }
+
+    /**
+     * @param network  the network to compare the models on (it is forked, never changed)
+     * @param executor the executor to run the models on, or null to use one thread per model
+     */
+    public ModelComparison(Network network, ExecutorService executor) {
+        this.network = network;
+        this.models = new LinkedHashMap<>();
+        this.executor = executor;
+    }
+
+    /**
+     * Selects a model to compare.
+     *
+     * @param name    the name to report the model under
+     * @param factory creates the model on the (forked) network it should run on
+     * @return this comparison
+     */
+    public ModelComparison add(String name, Function<Network, ? extends Model> factory) {
+        if (this.models.putIfAbsent(name, factory) != null) {
+            throw new IllegalArgumentException(String.format("A model named \"%s\" was already added!", name));
+        }
+        return this;
+    }
+
+    /**
+     * Runs every selected model and waits for all of them to finish. A model that fails
+     * to be created or to run is reported with its error instead of a result.
+     *
+     * @return the results of every model, in the order they were added
+     */
+    public Report run() {
+        if (this.models.isEmpty()) {
+            throw new IllegalStateException("No models were added to the comparison!");
+        }
+
+        ExecutorService executor = this.executor;
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(this.models.size(), runnable -> {
+                Thread thread = new Thread(runnable, "model-comparison");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        long start = System.nanoTime();
+        List<Future<Entry>> futures = new ArrayList<>();
+        CompletionService<Entry> completion = new ExecutorCompletionService<>(executor);
+        try {
+            Network fork;
+            for (Map.Entry<String, Function<Network, ? extends Model>> model : this.models.entrySet()) {
+                /* Forks are made here, since the network must not change while it is forked */
+                fork = this.network.fork();
+                futures.add(completion.submit(runTask(model.getKey(), model.getValue(), fork)));
+            }
+
+            /* Wait in the order the models finish, so an error is seen without waiting for slower models */
+            for (int i = 0; i < futures.size(); i++) {
+                completion.take().get();
+            }
+            List<Entry> entries = new ArrayList<>();
+            for (Future<Entry> future : futures) {
+                entries.add(future.get());
+            }
+            return new Report(withGaps(entries), System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while comparing the models!", e);
+        } catch (ExecutionException e) {
+            /* Models that fail on their own are reported, so this is an error; stop the other models */
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Unable to compare the models!", e.getCause());
+        } finally {
+            if (this.executor == null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static Callable<Entry> runTask(String name, Function<Network, ? extends Model> factory, Network network) {
+        return () -> {
+            long start = System.nanoTime();
+            Model model = null;
+            try {
+                model = factory.apply(network);
+                model.run();
+                return new Entry(name, model, ModelResult.of(model), System.nanoTime() - start, Double.NaN, null);
+            } catch (RuntimeException e) {
+                return new Entry(name, model, null, System.nanoTime() - start, Double.NaN, e);
+            }
+        };
+    }
+
+    private static List<Entry> withGaps(List<Entry> entries) {
+        int best = Integer.MIN_VALUE;
+        for (Entry entry : entries) {
+            if (entry.succeeded()) {
+                best = Math.max(best, entry.result().totalProfit());
+            }
+        }
+
+        List<Entry> gapped = new ArrayList<>(entries.size());
+        double gap;
+        for (Entry entry : entries) {
+            if (!entry.succeeded()) {
+                gapped.add(entry);
+                continue;
+            }
+            /* A gap relative to a best profit of 0 has no meaning */
+            if (best == entry.result().totalProfit()) {
+                gap = 0.0;
+            } else if (best == 0) {
+                gap = Double.NaN;
+            } else {
+                gap = (best - entry.result().totalProfit()) / (double) Math.abs(best);
+            }
+            gapped.add(new Entry(entry.name(), entry.model(), entry.result(), entry.elapsedNanos(), gap, null));
+        }
+        return gapped;
+    }
+
+    /**
+     * The outcome of running one model of a comparison.
+     *
+     * @param name         the name the model was added under
+     * @param model        the model (ran on its own fork of the network), or null if it could not be created
+     * @param result       the totals of the model, or null if it failed
+     * @param elapsedNanos the time it took to create and run the model
+     * @param gap          how much less profit the model made than the best model, as a fraction of the
+     *                     best profit (NaN if it failed, or if the best profit is 0 and this model made less)
+     * @param error        the reason the model failed, or null if it succeeded
+     */
+    public record Entry(String name, Model model, ModelResult result, long elapsedNanos, double gap, Throwable error) {
+
+        public boolean succeeded() {
+            return this.error == null;
+        }
+
+        public double elapsedMillis() {
+            return this.elapsedNanos / 1e6;
+        }
+    }
+
+    /**
+     * The outcome of a whole comparison.
+     *
+     * @param entries   the outcome of every model, in the order they were added
+     * @param wallNanos the time it took to run all of the models
+     */
+    public record Report(List<Entry> entries, long wallNanos) {
+
+        /* The header and every row share one format, so the columns always line up */
+        private static final String ROW = "%-28s | %14s | %14s | %14s | %8s | %10s | %8s\n";
+
+        public Entry get(String name) {
+            for (Entry entry : this.entries) {
+                if (entry.name().equals(name)) {
+                    return entry;
+                }
+            }
+            throw new IllegalArgumentException(String.format("No model named \"%s\" was compared!", name));
+        }
+
+        public double wallMillis() {
+            return this.wallNanos / 1e6;
+        }
+
+        public void printSummary(PrintStream out) {
+            out.printf(ROW, "Model", "Value (\u00b5J)", "Cost (\u00b5J)", "Profit (\u00b5J)", "Packets", "Time (ms)", "Gap");
+            out.println("-".repeat(String.format(ROW, "", "", "", "", "", "", "").length() - 1));
+            ModelResult result;
+            for (Entry entry : this.entries) {
+                if (!entry.succeeded()) {
+                    out.printf("%-28s | %s\n", entry.name(), "FAILED: " + entry.error().getMessage());
+                    continue;
+                }
+                result = entry.result();
+                out.printf(ROW, entry.name(),
+                        String.format("%,d", result.totalValue()), String.format("%,d", result.totalCost()),
+                        String.format("%,d", result.totalProfit()), String.format("%,d", result.totalPackets()),
+                        String.format("%,.1f", entry.elapsedMillis()),
+                        Double.isNaN(entry.gap()) ? "n/a" : String.format("%.2f%%", entry.gap() * 100));
+            }
+            out.printf("Wall time: %,.1f ms\n", this.wallMillis());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.grivera.solver;
+
+/**
+ * The totals (and optionally the printed routes) produced by running a {@link Model}.
+ *
+ * @param totalValue   the total value of the preserved packets
+ * @param totalCost    the total energy cost of preserving them
+ * @param totalProfit  the total profit (value - cost)
+ * @param totalPackets the total number of preserved packets
+ * @param routes       the output of {@link Model#printRoute()}, or null if not kept
+ */
+public record ModelResult(int totalValue, int totalCost, int totalProfit, int totalPackets, String routes) {
+
+    public static ModelResult of(Model model) {
+        return new ModelResult(model.getTotalValue(), model.getTotalCost(), model.getTotalProfit(), model.getTotalPackets(), null);
+    }
+
+    public boolean hasRoutes() {
+        return this.routes != null;
+    }
+
+    public ModelResult withRoutes(String routes) {
+        return new ModelResult(this.totalValue, this.totalCost, this.totalProfit, this.totalPackets, routes);
+    }
+}
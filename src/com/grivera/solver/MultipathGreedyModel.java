@@ -0,0 +1,141 @@
+package com.grivera.solver;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.grivera.generator.Network;
+import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.SensorNode;
+import com.grivera.generator.sensors.StorageNode;
+
+/**
+ * A greedy model that spreads the packets of every Data Node (by decreasing packet value) over several
+ * routes to the same Storage Node before moving on to the next one: the k cheapest loopless paths to each
+ * of the nearest Storage Nodes, in cost order. The paths are only computed once per pair, so using up one
+ * route does not cost another search.
+ */
+public class MultipathGreedyModel extends AbstractModel {
+    private static final int DEFAULT_PATHS = 4;
+
+    private final int pathsPerPair;
+    private RouteStore routes;
+    private int totalValue;
+    private int totalCost;
+    private int totalProfit;
+    private int totalPackets;
+
+    public MultipathGreedyModel(Network network) {
+        this(network, DEFAULT_PATHS);
+    }
+
+    public MultipathGreedyModel(Network network, int pathsPerPair) {
+        super(network);
+        if (pathsPerPair < 1) {
+            throw new IllegalArgumentException("The number of paths per pair must be positive!");
+        }
+        this.pathsPerPair = pathsPerPair;
+    }
+
+    public MultipathGreedyModel(String fileName) {
+        super(fileName);
+        this.pathsPerPair = DEFAULT_PATHS;
+    }
+
+    public MultipathGreedyModel(String fileName, int overflowPackets, int storageCapacity) {
+        super(fileName, overflowPackets, storageCapacity);
+        this.pathsPerPair = DEFAULT_PATHS;
+    }
+
+    public void run(int episodes) {
+        System.out.println("Warning: Ignoring episodes count; defaulting to 1...");
+        this.run();
+    }
+
+    @Override
+    public void run() {
+        super.run();
+        this.totalValue = 0;
+        this.totalCost = 0;
+        this.totalProfit = 0;
+        this.totalPackets = 0;
+        this.routes = new RouteStore(this.getNetwork());
+
+        Network network = this.getNetwork();
+        List<DataNode> sortedDns = new ArrayList<>(network.getDataNodes());
+        sortedDns.sort((dn1, dn2) -> -Integer.compare(dn1.getOverflowPacketValue(), dn2.getOverflowPacketValue()));
+
+        StorageNode sn;
+        List<List<SensorNode>> paths;
+        int packetsToSend;
+        boolean sent;
+        for (DataNode dn : sortedDns) {
+            sent = true;
+            while (sent && dn.hasEnergy() && !dn.isEmpty()) {
+                sent = false;
+                for (List<SensorNode> nearestPath : network.getNearestStoragePaths(dn)) {
+                    sn = (StorageNode) nearestPath.getLast();
+
+                    /* The k paths ignore energy, so end with the cheapest path that can still carry a packet */
+                    paths = new ArrayList<>(network.getKShortestPaths(dn, sn, this.pathsPerPair));
+                    paths.add(nearestPath);
+                    for (List<SensorNode> path : paths) {
+                        packetsToSend = Math.min(network.calculateMaxPacketsAlong(path), dn.getPacketsLeft());
+                        if (packetsToSend <= 0) {
+                            continue;
+                        }
+
+                        this.totalValue += dn.getOverflowPacketValue() * packetsToSend;
+                        this.totalCost += network.calculateCostOfPath(path) * packetsToSend;
+                        this.routes.add(path, packetsToSend);
+
+                        network.sendPacketsAlong(path, packetsToSend);
+                        sent = true;
+                        if (dn.isEmpty()) {
+                            break;
+                        }
+                    }
+                    if (dn.isEmpty()) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        this.totalProfit = this.totalValue - this.totalCost;
+
+        for (StorageNode storageNode : this.getNetwork().getStorageNodes()) {
+            this.totalPackets += storageNode.getUsedSpace();
+        }
+    }
+
+    @Override
+    public int getTotalValue() {
+        super.getTotalValue();
+        return this.totalValue;
+    }
+
+    @Override
+    public int getTotalCost() {
+        super.getTotalCost();
+        return this.totalCost;
+    }
+
+    @Override
+    public int getTotalProfit() {
+        super.getTotalProfit();
+        return this.totalProfit;
+    }
+
+    @Override
+    public int getTotalPackets() {
+        super.getTotalPackets();
+        return this.totalPackets;
+    }
+
+    @Override
+    public void printRoute(PrintStream out) {
+        super.printRoute(out);
+        this.routes.printRoutes(out);
+    }
+}
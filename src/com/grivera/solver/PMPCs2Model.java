@@ -4,48 +4,61 @@ import com.grivera.generator.Network;
 import com.grivera.generator.sensors.SensorNode;
 import com.grivera.util.Tuple;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 
 public class PMPCs2Model extends AbstractModel {
 
     private final String cs2Location;
+    private final File cs2Executable;
+    private final Cs2ProcessPool pool;
     private int totalProfit;
     private List<Tuple<SensorNode, SensorNode, Integer>> flows;
 
     public PMPCs2Model(Network network) {
         this(network, ".");
     }
+
     public PMPCs2Model(Network network, String cs2Location) {
+        this(network, cs2Location, Cs2ProcessPool.getDefault());
+    }
+
+    public PMPCs2Model(Network network, String cs2Location, Cs2ProcessPool pool) {
         super(network);
         this.cs2Location = cs2Location;
-        this.verifyCs2();
+        this.cs2Executable = this.verifyCs2();
+        this.pool = pool;
     }
 
     public PMPCs2Model(String fileName) {
         this(fileName, ".");
     }
 
-    /* Note, this isn't thread safe */
     public PMPCs2Model(String fileName, String cs2Location) {
         super(fileName);
         this.cs2Location = cs2Location;
-        this.verifyCs2();
+        this.cs2Executable = this.verifyCs2();
+        this.pool = Cs2ProcessPool.getDefault();
     }
 
     public PMPCs2Model(String fileName, String cs2Location, int overflowPackets, int storageCapacity) {
         super(fileName, overflowPackets, storageCapacity);
         this.cs2Location = cs2Location;
-        this.verifyCs2();
+        this.cs2Executable = this.verifyCs2();
+        this.pool = Cs2ProcessPool.getDefault();
     }
 
-    private void verifyCs2() {
+    private File verifyCs2() {
         File currDir = new File(this.cs2Location);
         File[] files = currDir.listFiles(f -> f.getName().matches("^cs2(.exe)?$"));
         if (files == null || files.length < 1) {
@@ -53,6 +66,7 @@ public class PMPCs2Model extends AbstractModel {
                     String.format("Couldn't find CS2 program [Searched Dir: \"%s\"]", currDir.getAbsoluteFile())
             );
         }
+        return files[0].getAbsoluteFile();
     }
 
     public void run(int episodes) {
@@ -62,54 +76,56 @@ public class PMPCs2Model extends AbstractModel {
 
     public void run() {
         super.run();
-
-        String baseFileName = String.format("cs2_tmp_%s", this.getDateString());
-        String tmpInpName = String.format("%s.inp", baseFileName);
+        this.flows = new ArrayList<>();
+        this.totalProfit = 0;
 
         Network network = this.getNetwork();
-        network.saveAsCsInp(tmpInpName);
+        ProcessBuilder builder = new ProcessBuilder(this.cs2Executable.getPath())
+                .redirectError(ProcessBuilder.Redirect.INHERIT);
 
-        String cs2FullPath = new File(this.cs2Location).getAbsolutePath();
-        Path tmpTxt = null;
-        String tmpTxtName;
+        Process process = null;
         try {
-            tmpTxt = Files.createTempFile(Path.of("."), baseFileName, ".txt");
-            tmpTxtName = tmpTxt.toString();
-            String osName = System.getProperty("os.name");
-            String mainCommand = String.format("(\"%s/cs2\" < \"%s\") > \"%s\"", cs2FullPath, tmpInpName, tmpTxtName);
-
-            List<String> osCommand;
-            if (osName.startsWith("Windows")) {
-                osCommand = List.of("cmd", "/C", mainCommand.replace("/", "\\"));
-            } else if (osName.startsWith("Mac OS")) {
-                osCommand = List.of("/bin/zsh", "-c", mainCommand);
-            } else {
-                osCommand = List.of("/bin/bash", "-c", mainCommand);
+            process = this.pool.start(builder);
+
+            /*
+             * Stream the flow network into CS2 while its results are read back. The writer gets a thread of its own:
+             * on a shared pool busy with other models, it could wait behind them while CS2 waits for its input
+             */
+            Process cs2 = process;
+            CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+                try (PrintWriter stdin = new PrintWriter(new OutputStreamWriter(cs2.getOutputStream(), StandardCharsets.US_ASCII))) {
+                    network.writeCsInp(stdin);
+                }
+            }, task -> {
+                Thread thread = new Thread(task, "cs2-writer");
+                thread.setDaemon(true);
+                thread.start();
+            });
+
+            try (BufferedReader stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII))) {
+                this.parseCs2(stdout);
             }
+            writer.get();
 
-            new ProcessBuilder(osCommand)
-                    .directory(new File("."))
-                    .start()
-                    .waitFor();
-
-            this.parseCs2(tmpTxt.toFile());
-
-            /* Clear the .inp and .txt files after no longer needed */
-            tmpTxt.toFile().delete();
-        } catch (IOException | InterruptedException e) {
-            System.err.printf("ERROR: Terminal not supported for '%s'!\n", System.getProperty("os.name"));
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                System.err.printf("ERROR: CS2 exited with code %d!\n", exitCode);
+            }
+        } catch (IOException | ExecutionException e) {
+            System.err.printf("ERROR: Unable to run CS2 at '%s': %s\n", this.cs2Executable, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("ERROR: Interrupted while running CS2!");
         } catch (IllegalArgumentException e) {
             System.err.printf("ERROR: Unable to parse CS2 Results: '%s'\n", e.getMessage());
-            tmpTxt.toFile().delete();
+        } finally {
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
         }
-        new File(tmpInpName).delete();
     }
 
-    private void parseCs2(File file) {
-        if (!file.exists()) {
-            throw new RuntimeException("Running CS2 Failed!");
-        }
-
+    private void parseCs2(BufferedReader reader) throws IOException {
         String[] lineSplit;
         SensorNode tmpSrc;
         SensorNode tmpDst;
@@ -119,41 +135,40 @@ public class PMPCs2Model extends AbstractModel {
 
         Network network = this.getNetwork();
 
-        this.flows = new ArrayList<>();
-        try (Scanner fileScanner = new Scanner(file)) {
-            if (!fileScanner.hasNext()) {
-                System.err.println("WARNING: EMPTY FILE!");
+        String line = reader.readLine();
+        if (line == null) {
+            System.err.println("WARNING: EMPTY OUTPUT!");
+        }
+        for (; line != null; line = reader.readLine()) {
+            if (line.isBlank()) {
+                continue;
             }
-            while (fileScanner.hasNext()) {
-                lineSplit = fileScanner.nextLine().split("\\s+");
-
-                switch (lineSplit[0].charAt(0)) {
-                    case 's':
-                        this.totalProfit = -Integer.parseInt(lineSplit[1]);
-                        break;
-                    case 'f':
-                        srcId = Integer.parseInt(lineSplit[1]);
-                        dstId = Integer.parseInt(lineSplit[2]);
-
-                        if (srcId < 1 || dstId > network.getDataNodeCount() + network.getStorageNodeCount()) {
-                            break;
-                        }
+            lineSplit = line.trim().split("\\s+");
 
-                        tmpSrc = network.getSensorNodeByUuid(srcId);
-                        tmpDst = network.getSensorNodeByUuid(dstId);
+            switch (lineSplit[0].charAt(0)) {
+                case 's':
+                    this.totalProfit = -Integer.parseInt(lineSplit[1]);
+                    break;
+                case 'f':
+                    srcId = Integer.parseInt(lineSplit[1]);
+                    dstId = Integer.parseInt(lineSplit[2]);
 
-                        tmpFlow = Integer.parseInt(lineSplit[3]);
-                        this.flows.add(Tuple.of(tmpSrc, tmpDst, tmpFlow));
+                    if (srcId < 1 || dstId > network.getDataNodeCount() + network.getStorageNodeCount()) {
                         break;
-                    case 'c':
-                        break;
-                    default:
-                        System.err.printf("WARNING: Invalid command '%s' found! Skipping...\n", lineSplit[0]);
-                        break;
-                }
+                    }
+
+                    tmpSrc = network.getSensorNodeByUuid(srcId);
+                    tmpDst = network.getSensorNodeByUuid(dstId);
+
+                    tmpFlow = Integer.parseInt(lineSplit[3]);
+                    this.flows.add(Tuple.of(tmpSrc, tmpDst, tmpFlow));
+                    break;
+                case 'c':
+                    break;
+                default:
+                    System.err.printf("WARNING: Invalid command '%s' found! Skipping...\n", lineSplit[0]);
+                    break;
             }
-        } catch (IOException e) {
-            throw new RuntimeException("Cannot open file!");
         }
     }
 
@@ -164,20 +179,20 @@ public class PMPCs2Model extends AbstractModel {
     }
 
     @Override
-    public void printRoute() {
-        super.printRoute();
+    public void printRoute(PrintStream out) {
+        super.printRoute(out);
 
         StringJoiner str;
         Network network = this.getNetwork();
         for (Tuple<SensorNode, SensorNode, Integer> tuple : this.flows) {
             if (tuple.third() > 0) {
-                System.out.printf("%s -> %s (flow = %d)\n", tuple.first().getName(), tuple.second().getName(), tuple.third());
+                out.printf("%s -> %s (flow = %d)\n", tuple.first().getName(), tuple.second().getName(), tuple.third());
 
                 str = new StringJoiner(" -> ", "[", "]");
                 for (SensorNode n : network.getMinCostPath(tuple.first(), tuple.second())) {
                     str.add(n.getName());
                 }
-                System.out.printf("\t%s\n", str);
+                out.printf("\t%s\n", str);
             }
         }
     }
@@ -218,11 +233,4 @@ public class PMPCs2Model extends AbstractModel {
         }
         return totalPackets;
     }
-
-    private String getDateString() {
-        String pattern = "yyyyMMddHHmmss";
-        DateFormat df = new SimpleDateFormat(pattern);
-        Date today = Calendar.getInstance().getTime();
-        return df.format(today);
-    }
 }
\ No newline at end of file
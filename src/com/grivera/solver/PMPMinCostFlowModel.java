@@ -0,0 +1,148 @@
+package com.grivera.solver;
+
+import com.grivera.generator.Network;
+import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.SensorNode;
+import com.grivera.generator.sensors.StorageNode;
+import com.grivera.util.Tuple;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Solves the same max-profit flow network as {@link PMPCs2Model} (see {@link Network#saveAsCsInp(String)}),
+ * but in-process using {@link MinCostFlow} instead of an external CS2 executable.
+ */
+public class PMPMinCostFlowModel extends AbstractModel {
+
+    private int totalProfit;
+    private List<Tuple<SensorNode, SensorNode, Integer>> flows;
+
+    public PMPMinCostFlowModel(Network network) {
+        super(network);
+    }
+
+    public PMPMinCostFlowModel(String fileName) {
+        super(fileName);
+    }
+
+    public PMPMinCostFlowModel(String fileName, int overflowPackets, int storageCapacity) {
+        super(fileName, overflowPackets, storageCapacity);
+    }
+
+    public void run(int episodes) {
+        System.out.println("Warning: Ignoring episodes count; defaulting to 1...");
+        this.run();
+    }
+
+    @Override
+    public void run() {
+        super.run();
+
+        Network network = this.getNetwork();
+        List<DataNode> dns = network.getDataNodes();
+        List<StorageNode> sns = network.getStorageNodes();
+
+        /* Source, DNs, SNs, Dummy, Sink (same layout as the CS2 input) */
+        final int p = dns.size();
+        final int s = sns.size();
+        final int sourceIndex = 0;
+        final int dummyIndex = p + s + 1;
+        final int sinkIndex = p + s + 2;
+
+        MinCostFlow mcf = new MinCostFlow(p + s + 3);
+        int supply = 0;
+        for (DataNode dn : dns) {
+            supply += dn.getOverflowPackets();
+        }
+        mcf.setSupply(sourceIndex, supply);
+        mcf.setSupply(sinkIndex, -supply);
+
+        int[][] arcs = new int[p][s];
+        DataNode dn;
+        for (int dnIndex = 0; dnIndex < p; dnIndex++) {
+            dn = dns.get(dnIndex);
+            mcf.addArc(sourceIndex, dnIndex + 1, 0, dn.getOverflowPackets(), 0);
+            for (int snIndex = 0; snIndex < s; snIndex++) {
+                arcs[dnIndex][snIndex] = mcf.addArc(dnIndex + 1, p + snIndex + 1, 0, dn.getOverflowPackets(),
+                        -network.calculateProfitOf(dn, sns.get(snIndex)));
+            }
+            mcf.addArc(dnIndex + 1, dummyIndex, 0, dn.getOverflowPackets(), 0);
+        }
+        for (int snIndex = 0; snIndex < s; snIndex++) {
+            mcf.addArc(p + snIndex + 1, sinkIndex, 0, sns.get(snIndex).getCapacity(), 0);
+        }
+        mcf.addArc(dummyIndex, sinkIndex, 0, supply, 0);
+
+        this.totalProfit = (int) -mcf.solve();
+        this.flows = new ArrayList<>();
+        int flow;
+        for (int dnIndex = 0; dnIndex < p; dnIndex++) {
+            for (int snIndex = 0; snIndex < s; snIndex++) {
+                flow = (int) mcf.getFlow(arcs[dnIndex][snIndex]);
+                if (flow > 0) {
+                    this.flows.add(Tuple.of(dns.get(dnIndex), sns.get(snIndex), flow));
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getTotalProfit() {
+        super.getTotalProfit();
+        return this.totalProfit;
+    }
+
+    @Override
+    public void printRoute(PrintStream out) {
+        super.printRoute(out);
+
+        StringJoiner str;
+        Network network = this.getNetwork();
+        for (Tuple<SensorNode, SensorNode, Integer> tuple : this.flows) {
+            out.printf("%s -> %s (flow = %d)\n", tuple.first().getName(), tuple.second().getName(), tuple.third());
+
+            str = new StringJoiner(" -> ", "[", "]");
+            for (SensorNode n : network.getMinCostPath(tuple.first(), tuple.second())) {
+                str.add(n.getName());
+            }
+            out.printf("\t%s\n", str);
+        }
+    }
+
+    @Override
+    public int getTotalValue() {
+        super.getTotalValue();
+
+        int totalValue = 0;
+        for (Tuple<SensorNode, SensorNode, Integer> tuple : this.flows) {
+            totalValue += ((DataNode) tuple.first()).getOverflowPacketValue() * tuple.third();
+        }
+        return totalValue;
+    }
+
+    @Override
+    public int getTotalCost() {
+        super.getTotalCost();
+
+        int totalCost = 0;
+        Network network = this.getNetwork();
+        for (Tuple<SensorNode, SensorNode, Integer> tuple : this.flows) {
+            totalCost += network.calculateMinCost(tuple.first(), tuple.second()) * tuple.third();
+        }
+        return totalCost;
+    }
+
+    @Override
+    public int getTotalPackets() {
+        super.getTotalPackets();
+
+        int totalPackets = 0;
+        for (Tuple<SensorNode, SensorNode, Integer> tuple : this.flows) {
+            totalPackets += tuple.third();
+        }
+        return totalPackets;
+    }
+}
@@ -1,21 +1,19 @@
 package com.grivera.solver;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
-import java.util.StringJoiner;
 
 import com.grivera.generator.Network;
+import com.grivera.generator.Path;
 import com.grivera.generator.sensors.DataNode;
 import com.grivera.generator.sensors.SensorNode;
 import com.grivera.generator.sensors.StorageNode;
-import com.grivera.util.Tuple;
 
 public class PriorityGreedyModel extends AbstractModel {
-    private Map<SensorNode, List<Tuple<StorageNode, Integer, List<SensorNode>>>> routes;
+    private RouteStore routes;
     private int totalValue;
     private int totalCost;
     private int totalProfit;
@@ -45,7 +43,7 @@ public class PriorityGreedyModel extends AbstractModel {
         this.totalCost = 0;
         this.totalProfit = 0;
         this.totalPackets = 0;
-        this.routes = new LinkedHashMap<>();
+        this.routes = new RouteStore(this.getNetwork());
         
         Network network = this.getNetwork();
         List<DataNode> sortedDns = new ArrayList<>(network.getDataNodes());
@@ -53,8 +51,10 @@ public class PriorityGreedyModel extends AbstractModel {
 
         Queue<StorageNode> sortedSns;
         StorageNode sn;
+        List<SensorNode> path;
         int packetsToSend;
         for (DataNode dn : sortedDns) {
+            /* The Data Node's shortest-path tree answers each cost, so ordering every Storage Node stays cheap */
             sortedSns = new PriorityQueue<>((sn1, sn2) -> Integer.compare(network.calculateMinCost(dn, sn1), network.calculateMinCost(dn, sn2)));
             sortedSns.addAll(network.getStorageNodes());
             while (dn.hasEnergy() && !dn.isEmpty() && !sortedSns.isEmpty()) {
@@ -63,23 +63,17 @@ public class PriorityGreedyModel extends AbstractModel {
                     continue;
                 }
 
-                packetsToSend = dn.getPacketsLeft();
-                while (!network.canSendPackets(dn, sn, packetsToSend)) {
-                    packetsToSend--;
-                    if (packetsToSend <= 0) {
-                        break;
-                    }
-                }
+                path = network.getMinCostPath(dn, sn);
+                packetsToSend = this.findMaxPackets(path, Math.min(dn.getPacketsLeft(), sn.getSpaceLeft()));
                 if (packetsToSend <= 0) {
                     continue;
                 }
 
                 this.totalValue += dn.getOverflowPacketValue() * packetsToSend;
-                this.totalCost += network.calculateMinCost(dn, sn) * packetsToSend;
-                routes.putIfAbsent(dn, new ArrayList<>());
-                routes.get(dn).add(Tuple.of(sn, packetsToSend, network.getMinCostPath(dn, sn)));
+                this.totalCost += network.calculateCostOfPath(path) * packetsToSend;
+                this.routes.add(path, packetsToSend);
 
-                network.sendPackets(dn, sn, packetsToSend);
+                network.sendPacketsAlong(path, packetsToSend);
             }
         }
 
@@ -90,6 +84,30 @@ public class PriorityGreedyModel extends AbstractModel {
         }
     }
     
+    /*
+     * A path that can carry some packets can carry fewer, so binary search for the most packets the
+     * min-cost path can carry (one check per step instead of one per packet)
+     */
+    private int findMaxPackets(List<SensorNode> path, int most) {
+        if (path.size() < 2) {
+            return 0;
+        }
+        Network network = this.getNetwork();
+        Path compact = network.toPath(path);
+        int low = 0;
+        int high = most;
+        int mid;
+        while (low < high) {
+            mid = (low + high + 1) >>> 1;
+            if (network.canSendPacketsAlong(compact, mid)) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
     @Override
     public int getTotalValue() {
         super.getTotalValue();
@@ -115,20 +133,8 @@ public class PriorityGreedyModel extends AbstractModel {
     }
 
     @Override
-    public void printRoute() {
-        super.printRoute();
-        StringJoiner str;
-
-        for (Map.Entry<SensorNode, List<Tuple<StorageNode, Integer, List<SensorNode>>>> entry : this.routes.entrySet()) {
-            for (Tuple<StorageNode, Integer, List<SensorNode>> route : entry.getValue()) {
-                str = new StringJoiner(" -> ", "[", "]");
-                System.out.printf("%s -> %s (flow = %d)\n", entry.getKey().getName(), route.first().getName(), route.second());
-                for (SensorNode node : route.third()) {
-                    str.add(node.getName());
-                }
-                System.out.printf("\t%s\n", str);
-            }
-        }
-
+    public void printRoute(PrintStream out) {
+        super.printRoute(out);
+        this.routes.printRoutes(out);
     }
 }
@@ -0,0 +1,203 @@
+package com.grivera.solver;
+
+import com.grivera.generator.Network;
+import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.SensorNode;
+import com.grivera.generator.sensors.StorageNode;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A persistent, size-bounded cache of {@link ModelResult}s.
+ *
+ * <p>
+ * Results are keyed by a stable hash of the network topology, the node values, the
+ * network parameters (q, m, battery capacity, bits per packet) and the model name.
+ * The least recently used entries are evicted once more than {@code maxEntries} are stored.
+ * The cache file is rewritten after every new result, so an interrupted sweep keeps
+ * every result it finished.
+ * </p>
+ */
+public class ResultCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final File file;
+    private final int maxEntries;
+    private final LinkedHashMap<String, ModelResult> entries;
+
+    public ResultCache(String fileName) {
+        this(fileName, DEFAULT_MAX_ENTRIES);
+    }
+
+    public ResultCache(String fileName, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The result cache must hold at least one entry!");
+        }
+        this.file = new File(fileName);
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ModelResult> eldest) {
+                return this.size() > ResultCache.this.maxEntries;
+            }
+        };
+        this.load();
+    }
+
+    /**
+     * Computes the cache key of running a model on a network.
+     *
+     * @param network   the network the model runs on
+     * @param modelName the name of the model (e.g. its class name)
+     * @return a hex encoded SHA-256 hash of the network and its parameters
+     */
+    public static String keyOf(Network network, String modelName) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(modelName);
+            out.writeDouble(network.getWidth());
+            out.writeDouble(network.getLength());
+            out.writeDouble(network.getTransmissionRange());
+            out.writeInt(network.getDataPacketCount());
+            out.writeInt(network.getStorageCapacity());
+            out.writeInt(network.getBatteryCapacity());
+            out.writeInt(SensorNode.getBitsPerPacket());
+
+            out.writeInt(network.getSensorNodeCount());
+            for (SensorNode node : network.getSensorNodes()) {
+                out.writeDouble(node.getX());
+                out.writeDouble(node.getY());
+                if (node instanceof DataNode dn) {
+                    out.writeByte('d');
+                    out.writeInt(dn.getOverflowPackets());
+                    out.writeInt(dn.getOverflowPacketValue());
+                } else if (node instanceof StorageNode sn) {
+                    out.writeByte('s');
+                    out.writeInt(sn.getCapacity());
+                } else {
+                    out.writeByte('t');
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to fingerprint the network", e);
+        }
+
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    public synchronized ModelResult get(String key) {
+        return this.entries.get(key);
+    }
+
+    public synchronized boolean contains(String key) {
+        return this.entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Stores a result and persists the cache.
+     *
+     * @param key    the key from {@link #keyOf(Network, String)}
+     * @param result the result to store
+     */
+    public synchronized void put(String key, ModelResult result) {
+        this.entries.put(key, result);
+        this.save();
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+        this.save();
+    }
+
+    private void load() {
+        if (!this.file.exists()) {
+            return;
+        }
+
+        int lineNumber = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(this.file))) {
+            String[] lineArgs;
+            StringBuilder routes;
+            int routeLines;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+
+                lineArgs = line.split(" ");
+                if (lineArgs.length != 7 || !lineArgs[0].equals("r")) {
+                    throw new IOException(String.format("Invalid Line %d: %s!", lineNumber, line));
+                }
+
+                routes = null;
+                routeLines = Integer.parseInt(lineArgs[6]);
+                if (routeLines >= 0) {
+                    routes = new StringBuilder();
+                    for (int i = 0; i < routeLines; i++) {
+                        routes.append(reader.readLine()).append('\n');
+                        lineNumber++;
+                    }
+                }
+
+                this.entries.put(lineArgs[1], new ModelResult(
+                        Integer.parseInt(lineArgs[2]), Integer.parseInt(lineArgs[3]),
+                        Integer.parseInt(lineArgs[4]), Integer.parseInt(lineArgs[5]),
+                        routes == null ? null : routes.toString()
+                ));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.printf("WARNING: Ignoring invalid result cache \"%s\": %s\n", this.file, e.getMessage());
+            this.entries.clear();
+        }
+    }
+
+    private void save() {
+        Path target = this.file.getAbsoluteFile().toPath();
+        try {
+            Path tmp = Files.createTempFile(target.getParent(), this.file.getName(), ".tmp");
+            try (PrintWriter pw = new PrintWriter(tmp.toFile())) {
+                pw.println("# Model result cache (least recently used first)");
+                pw.println("# r <key> <value> <cost> <profit> <packets> <route lines (-1 if none)>");
+                ModelResult result;
+                String[] routeLines;
+                for (Map.Entry<String, ModelResult> entry : this.entries.entrySet()) {
+                    result = entry.getValue();
+                    routeLines = result.hasRoutes() && !result.routes().isEmpty() ? result.routes().split("\n") : new String[0];
+                    pw.printf("r %s %d %d %d %d %d\n", entry.getKey(),
+                            result.totalValue(), result.totalCost(), result.totalProfit(), result.totalPackets(),
+                            result.hasRoutes() ? routeLines.length : -1);
+                    for (String routeLine : routeLines) {
+                        pw.println(routeLine);
+                    }
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.printf("ERROR: Failed to save the result cache \"%s\"!\n", this.file);
+        }
+    }
+}
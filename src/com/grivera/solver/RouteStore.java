@@ -0,0 +1,313 @@
+package com.grivera.solver;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import com.grivera.generator.Network;
+import com.grivera.generator.sensors.NetworkState;
+import com.grivera.generator.sensors.SensorNode;
+
+/**
+ * The routes a model sends its packets along, with the flow of every route, kept in flat arrays.
+ *
+ * <p>
+ * The paths are interned in a trie of node indices: a path is the id of its last trie node, and paths
+ * that start the same way (e.g. the paths a model grows one hop at a time, or the routes of one Data Node
+ * through the same relays) share the trie nodes of their common prefix. The routes are grouped by their
+ * first node, in the order the first nodes were first seen, and iterating over them allocates nothing.
+ * </p>
+ */
+public class RouteStore {
+
+    private static final int NONE = -1;
+
+    private final Network network;
+
+    /* The trie of paths: the node index, parent, depth, first child and next sibling of every trie node */
+    private int[] trieNode;
+    private int[] trieParent;
+    private int[] trieDepth;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int trieSize;
+    private final int[] rootOf;
+    private int maxDepth;
+
+    /* The routes: the path and flow of every route, and the next route with the same first node */
+    private int[] routePath;
+    private int[] routeFlow;
+    private int[] nextRoute;
+    private int routeCount;
+
+    /* The first and last route of every first node, and the first nodes in the order they were first seen */
+    private final int[] firstRoute;
+    private final int[] lastRoute;
+    private int[] starts;
+    private int startCount;
+
+    /* Scratch space to walk a path from its first node */
+    private int[] walk = new int[16];
+
+    public RouteStore(Network network) {
+        this.network = network;
+        final int n = network.getNodeStore().size();
+        this.trieNode = new int[16];
+        this.trieParent = new int[16];
+        this.trieDepth = new int[16];
+        this.firstChild = new int[16];
+        this.nextSibling = new int[16];
+        this.rootOf = new int[n];
+        Arrays.fill(this.rootOf, NONE);
+
+        this.routePath = new int[16];
+        this.routeFlow = new int[16];
+        this.nextRoute = new int[16];
+        this.firstRoute = new int[n];
+        this.lastRoute = new int[n];
+        Arrays.fill(this.firstRoute, NONE);
+        this.starts = new int[16];
+    }
+
+    /**
+     * Returns the path of a single node.
+     *
+     * @param node the index of the node
+     * @return the id of the path
+     */
+    public int start(int node) {
+        int root = this.rootOf[node];
+        if (root == NONE) {
+            root = this.newTrieNode(node, NONE);
+            this.rootOf[node] = root;
+        }
+        return root;
+    }
+
+    /**
+     * Returns the path that goes one hop further than another.
+     *
+     * @param path the id of the path to extend
+     * @param node the index of the node to go to
+     * @return the id of the extended path
+     */
+    public int extend(int path, int node) {
+        for (int child = this.firstChild[path]; child != NONE; child = this.nextSibling[child]) {
+            if (this.trieNode[child] == node) {
+                return child;
+            }
+        }
+        int child = this.newTrieNode(node, path);
+        this.nextSibling[child] = this.firstChild[path];
+        this.firstChild[path] = child;
+        return child;
+    }
+
+    /**
+     * Interns a path of Sensor Nodes.
+     *
+     * @param path the nodes of the path
+     * @return the id of the path
+     */
+    public int intern(List<SensorNode> path) {
+        if (path.isEmpty()) {
+            throw new IllegalArgumentException("A path needs at least one node!");
+        }
+        int id = this.start(path.getFirst().getIndex());
+        for (int i = 1; i < path.size(); i++) {
+            id = this.extend(id, path.get(i).getIndex());
+        }
+        return id;
+    }
+
+    private int newTrieNode(int node, int parent) {
+        if (this.trieSize == this.trieNode.length) {
+            int capacity = this.trieSize * 2;
+            this.trieNode = Arrays.copyOf(this.trieNode, capacity);
+            this.trieParent = Arrays.copyOf(this.trieParent, capacity);
+            this.trieDepth = Arrays.copyOf(this.trieDepth, capacity);
+            this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+            this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+        }
+        int id = this.trieSize++;
+        this.trieNode[id] = node;
+        this.trieParent[id] = parent;
+        this.trieDepth[id] = parent == NONE ? 1 : this.trieDepth[parent] + 1;
+        this.firstChild[id] = NONE;
+        this.nextSibling[id] = NONE;
+        this.maxDepth = Math.max(this.maxDepth, this.trieDepth[id]);
+        return id;
+    }
+
+    /**
+     * Adds a route along an interned path.
+     *
+     * @param path the id of the path
+     * @param flow the number of packets sent along it
+     */
+    public void add(int path, int flow) {
+        if (this.routeCount == this.routePath.length) {
+            int capacity = this.routeCount * 2;
+            this.routePath = Arrays.copyOf(this.routePath, capacity);
+            this.routeFlow = Arrays.copyOf(this.routeFlow, capacity);
+            this.nextRoute = Arrays.copyOf(this.nextRoute, capacity);
+        }
+        int route = this.routeCount++;
+        this.routePath[route] = path;
+        this.routeFlow[route] = flow;
+        this.nextRoute[route] = NONE;
+
+        int start = this.getNode(path, 0);
+        if (this.firstRoute[start] == NONE) {
+            this.firstRoute[start] = route;
+            if (this.startCount == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.startCount * 2);
+            }
+            this.starts[this.startCount++] = start;
+        } else {
+            this.nextRoute[this.lastRoute[start]] = route;
+        }
+        this.lastRoute[start] = route;
+    }
+
+    /**
+     * Adds a route along a path of Sensor Nodes.
+     *
+     * @param path the nodes of the path
+     * @param flow the number of packets sent along it
+     */
+    public void add(List<SensorNode> path, int flow) {
+        this.add(this.intern(path), flow);
+    }
+
+    public int size() {
+        return this.routeCount;
+    }
+
+    /**
+     * Returns the number of trie nodes the paths take, at most the total length of the routes.
+     *
+     * @return the number of trie nodes
+     */
+    public int getTrieSize() {
+        return this.trieSize;
+    }
+
+    public int getStartCount() {
+        return this.startCount;
+    }
+
+    /**
+     * Returns the first node of the routes of a group, in the order the first nodes were first seen.
+     *
+     * @param group the position of the group
+     * @return the index of the first node of the routes of the group
+     */
+    public int getStart(int group) {
+        return this.starts[group];
+    }
+
+    /**
+     * Returns the first route that starts at a node.
+     *
+     * @param start the index of the first node
+     * @return the first route, or -1 if none
+     */
+    public int getFirstRoute(int start) {
+        return this.firstRoute[start];
+    }
+
+    /**
+     * Returns the next route with the same first node, in the order they were added.
+     *
+     * @param route the route
+     * @return the next route, or -1 if none
+     */
+    public int getNextRoute(int route) {
+        return this.nextRoute[route];
+    }
+
+    public int getPath(int route) {
+        return this.routePath[route];
+    }
+
+    public int getFlow(int route) {
+        return this.routeFlow[route];
+    }
+
+    /**
+     * Returns the number of nodes of a path.
+     *
+     * @param path the id of the path
+     * @return the length of the path
+     */
+    public int getLength(int path) {
+        return this.trieDepth[path];
+    }
+
+    public int getLast(int path) {
+        return this.trieNode[path];
+    }
+
+    /**
+     * Returns the node at some position of a path. Walking a whole path this way takes quadratic time,
+     * unlike {@link #printRoutes(PrintStream)}.
+     *
+     * @param path     the id of the path
+     * @param position the position along the path
+     * @return the index of the node
+     */
+    public int getNode(int path, int position) {
+        for (int i = this.trieDepth[path] - 1; i > position; i--) {
+            path = this.trieParent[path];
+        }
+        return this.trieNode[path];
+    }
+
+    /**
+     * Prints every route with a positive flow, grouped by first node, the way the models print their routes.
+     *
+     * @param out the stream to print to
+     * @throws IllegalStateException if a route has a negative flow
+     */
+    public void printRoutes(PrintStream out) {
+        final NetworkState state = this.network.getState();
+        if (this.walk.length < this.maxDepth) {
+            this.walk = new int[this.maxDepth];
+        }
+        int start, path, length;
+        for (int group = 0; group < this.startCount; group++) {
+            start = this.starts[group];
+            for (int route = this.firstRoute[start]; route != NONE; route = this.nextRoute[route]) {
+                path = this.routePath[route];
+                if (this.routeFlow[route] < 0) {
+                    throw new IllegalStateException(String.format("Flow from %s -> %s is negative",
+                            state.getNode(start), state.getNode(this.trieNode[path])));
+                }
+                if (this.routeFlow[route] == 0) {
+                    continue;
+                }
+
+                length = this.trieDepth[path];
+                for (int i = length - 1; i >= 0; i--) {
+                    this.walk[i] = this.trieNode[path];
+                    path = this.trieParent[path];
+                }
+
+                out.print(state.getNode(start).getName());
+                out.print(" -> ");
+                out.print(state.getNode(this.walk[length - 1]).getName());
+                out.print(" (flow = ");
+                out.print(this.routeFlow[route]);
+                out.print(")\n\t[");
+                for (int i = 0; i < length; i++) {
+                    if (i > 0) {
+                        out.print(" -> ");
+                    }
+                    out.print(state.getNode(this.walk[i]).getName());
+                }
+                out.print("]\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.grivera.solver;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.grivera.generator.Network;
+import com.grivera.generator.sensors.DataNode;
+import com.grivera.generator.sensors.SensorNode;
+import com.grivera.generator.sensors.StorageNode;
+
+/**
+ * A greedy model that preserves as many packets as it can, rather than as much profit: every Data Node
+ * (by decreasing packet value) keeps sending to the Storage Node whose widest path can carry the most
+ * packets, along the cheapest path that can carry them (preferring the cheaper Storage Node between equals).
+ */
+public class ThroughputGreedyModel extends AbstractModel {
+    private RouteStore routes;
+    private int totalValue;
+    private int totalCost;
+    private int totalProfit;
+    private int totalPackets;
+
+    public ThroughputGreedyModel(Network network) {
+        super(network);
+    }
+
+    public ThroughputGreedyModel(String fileName) {
+        super(fileName);
+    }
+
+    public ThroughputGreedyModel(String fileName, int overflowPackets, int storageCapacity) {
+        super(fileName, overflowPackets, storageCapacity);
+    }
+
+    public void run(int episodes) {
+        System.out.println("Warning: Ignoring episodes count; defaulting to 1...");
+        this.run();
+    }
+
+    @Override
+    public void run() {
+        super.run();
+        this.totalValue = 0;
+        this.totalCost = 0;
+        this.totalProfit = 0;
+        this.totalPackets = 0;
+        this.routes = new RouteStore(this.getNetwork());
+
+        Network network = this.getNetwork();
+        List<DataNode> sortedDns = new ArrayList<>(network.getDataNodes());
+        sortedDns.sort((dn1, dn2) -> -Integer.compare(dn1.getOverflowPacketValue(), dn2.getOverflowPacketValue()));
+
+        StorageNode bestSn;
+        List<SensorNode> bestPath;
+        int bestPackets;
+        int bestCost;
+        List<SensorNode> path;
+        int packets;
+        int cost;
+        for (DataNode dn : sortedDns) {
+            while (dn.hasEnergy() && !dn.isEmpty()) {
+                bestSn = null;
+                bestPath = null;
+                bestPackets = 0;
+                bestCost = Integer.MAX_VALUE;
+                for (StorageNode sn : network.getStorageNodes()) {
+                    if (sn.isFull()) {
+                        continue;
+                    }
+                    packets = Math.min(network.calculateMaxPacketsAlong(network.getWidestPath(dn, sn)), dn.getPacketsLeft());
+                    if (packets <= 0 || packets < bestPackets) {
+                        continue;
+                    }
+
+                    /* The widest path only sets how many packets can go; send them along the cheapest path that can carry them */
+                    path = network.getMinCostPath(dn, sn, packets);
+                    cost = network.calculateCostOfPath(path);
+                    if (packets > bestPackets || cost < bestCost) {
+                        bestSn = sn;
+                        bestPath = path;
+                        bestPackets = packets;
+                        bestCost = cost;
+                    }
+                }
+                if (bestSn == null) {
+                    break;
+                }
+
+                this.totalValue += dn.getOverflowPacketValue() * bestPackets;
+                this.totalCost += bestCost * bestPackets;
+                this.routes.add(bestPath, bestPackets);
+
+                network.sendPacketsAlong(bestPath, bestPackets);
+            }
+        }
+
+        this.totalProfit = this.totalValue - this.totalCost;
+
+        for (StorageNode storageNode : this.getNetwork().getStorageNodes()) {
+            this.totalPackets += storageNode.getUsedSpace();
+        }
+    }
+
+    @Override
+    public int getTotalValue() {
+        super.getTotalValue();
+        return this.totalValue;
+    }
+
+    @Override
+    public int getTotalCost() {
+        super.getTotalCost();
+        return this.totalCost;
+    }
+
+    @Override
+    public int getTotalProfit() {
+        super.getTotalProfit();
+        return this.totalProfit;
+    }
+
+    @Override
+    public int getTotalPackets() {
+        super.getTotalPackets();
+        return this.totalPackets;
+    }
+
+    @Override
+    public void printRoute(PrintStream out) {
+        super.printRoute(out);
+        this.routes.printRoutes(out);
+    }
+}
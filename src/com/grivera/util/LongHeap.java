@@ -0,0 +1,102 @@
+package com.grivera.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of primitive longs.
+ *
+ * <p>
+ * Used by the graph searches to order (cost, node) pairs packed into one long
+ * (see {@link #pack(int, int)}) without boxing.
+ * </p>
+ */
+public class LongHeap {
+    private long[] heap;
+    private int size;
+
+    public LongHeap() {
+        this(16);
+    }
+
+    public LongHeap(int capacity) {
+        this.heap = new long[Math.max(1, capacity)];
+    }
+
+    /**
+     * Packs a non-negative cost and a node index into one long that orders by cost first.
+     *
+     * @param cost the cost (must be non-negative)
+     * @param node the node index (must be non-negative)
+     * @return the packed value
+     */
+    public static long pack(int cost, int node) {
+        return ((long) cost << 32) | node;
+    }
+
+    public static int cost(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    public static int node(long packed) {
+        return (int) packed;
+    }
+
+    public void push(long value) {
+        if (this.size == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, this.size * 2);
+        }
+        int child = this.size++;
+        int parent;
+        while (child > 0) {
+            parent = (child - 1) >>> 1;
+            if (this.heap[parent] <= value) {
+                break;
+            }
+            this.heap[child] = this.heap[parent];
+            child = parent;
+        }
+        this.heap[child] = value;
+    }
+
+    public long pop() {
+        if (this.size == 0) {
+            throw new NoSuchElementException("The heap is empty");
+        }
+        long top = this.heap[0];
+        long last = this.heap[--this.size];
+        int parent = 0;
+        int child;
+        while ((child = 2 * parent + 1) < this.size) {
+            if (child + 1 < this.size && this.heap[child + 1] < this.heap[child]) {
+                child++;
+            }
+            if (last <= this.heap[child]) {
+                break;
+            }
+            this.heap[parent] = this.heap[child];
+            parent = child;
+        }
+        this.heap[parent] = last;
+        return top;
+    }
+
+    public long peek() {
+        if (this.size == 0) {
+            throw new NoSuchElementException("The heap is empty");
+        }
+        return this.heap[0];
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+}
@@ -0,0 +1,207 @@
+package com.grivera.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A uniform grid of square cells over a rectangle, used to find the points near a position
+ * without comparing it against every point.
+ *
+ * <p>
+ * Points are identified by an int (e.g. a node index) and kept in one singly linked list per cell.
+ * Points outside the rectangle are clamped into its border cells.
+ * </p>
+ */
+public class SpatialGrid {
+    private static final int NONE = -1;
+
+    private final double minX, minY;
+    private final double cellSize;
+    private final int columns, rows;
+    private final int[] head;
+
+    private int[] next;
+    private int[] cellOf;
+    private double[] x;
+    private double[] y;
+
+    /**
+     * @param minX           the smallest x coordinate of a point
+     * @param minY           the smallest y coordinate of a point
+     * @param maxX           the largest x coordinate of a point
+     * @param maxY           the largest y coordinate of a point
+     * @param cellSize       the preferred width of a cell (typically the search radius)
+     * @param expectedPoints the expected number of points, which bounds the number of cells
+     */
+    public SpatialGrid(double minX, double minY, double maxX, double maxY, double cellSize, int expectedPoints) {
+        if (!(cellSize > 0)) {
+            throw new IllegalArgumentException("The cells of a grid must have a positive size!");
+        }
+        double width = Math.max(maxX - minX, 0);
+        double length = Math.max(maxY - minY, 0);
+
+        /* Never use more cells than about twice the points, so tiny cells cannot exhaust the heap */
+        long maxCells = Math.max(1, 2L * expectedPoints);
+        double size = cellSize;
+        while ((long) (width / size + 1) * (long) (length / size + 1) > maxCells) {
+            size *= 2;
+        }
+
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = size;
+        this.columns = (int) (width / size) + 1;
+        this.rows = (int) (length / size) + 1;
+        this.head = new int[this.columns * this.rows];
+        Arrays.fill(this.head, NONE);
+
+        int capacity = Math.max(1, expectedPoints);
+        this.next = new int[capacity];
+        this.cellOf = new int[capacity];
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        Arrays.fill(this.cellOf, NONE);
+    }
+
+    public void add(int point, double x, double y) {
+        if (point >= this.next.length) {
+            int capacity = Math.max(point + 1, this.next.length * 2);
+            this.next = Arrays.copyOf(this.next, capacity);
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            int oldCapacity = this.cellOf.length;
+            this.cellOf = Arrays.copyOf(this.cellOf, capacity);
+            Arrays.fill(this.cellOf, oldCapacity, capacity, NONE);
+        }
+        if (this.cellOf[point] != NONE) {
+            throw new IllegalArgumentException(String.format("Point %d is already in the grid", point));
+        }
+        int cell = this.cellAt(x, y);
+        this.x[point] = x;
+        this.y[point] = y;
+        this.cellOf[point] = cell;
+        this.next[point] = this.head[cell];
+        this.head[cell] = point;
+    }
+
+    public void remove(int point) {
+        int cell = this.cellOf[point];
+        if (cell == NONE) {
+            return;
+        }
+        if (this.head[cell] == point) {
+            this.head[cell] = this.next[point];
+        } else {
+            int prev = this.head[cell];
+            while (this.next[prev] != point) {
+                prev = this.next[prev];
+            }
+            this.next[prev] = this.next[point];
+        }
+        this.cellOf[point] = NONE;
+    }
+
+    public void move(int point, double x, double y) {
+        this.remove(point);
+        this.add(point, x, y);
+    }
+
+    /**
+     * Calls the action on every point within a radius of a position.
+     *
+     * @param x      the x coordinate of the position
+     * @param y      the y coordinate of the position
+     * @param radius the (inclusive) radius to search
+     * @param action called with every point in range
+     */
+    public void forEachWithin(double x, double y, double radius, IntConsumer action) {
+        int fromColumn = this.column(x - radius);
+        int toColumn = this.column(x + radius);
+        int fromRow = this.row(y - radius);
+        int toRow = this.row(y + radius);
+        double radiusSquared = radius * radius;
+
+        double dx, dy;
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                for (int point = this.head[row * this.columns + column]; point != NONE; point = this.next[point]) {
+                    dx = this.x[point] - x;
+                    dy = this.y[point] - y;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        action.accept(point);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls the action on every point in the cells that overlap a radius around a position, without
+     * measuring the points (a superset of {@link #forEachWithin(double, double, double, IntConsumer)}).
+     *
+     * @param x      the x coordinate of the position
+     * @param y      the y coordinate of the position
+     * @param radius the radius to search
+     * @param action called with every point near the position
+     */
+    public void forEachNear(double x, double y, double radius, IntConsumer action) {
+        int fromColumn = this.column(x - radius);
+        int toColumn = this.column(x + radius);
+        int fromRow = this.row(y - radius);
+        int toRow = this.row(y + radius);
+
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                for (int point = this.head[row * this.columns + column]; point != NONE; point = this.next[point]) {
+                    action.accept(point);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests whether any point is within a radius of a position.
+     *
+     * @param x      the x coordinate of the position
+     * @param y      the y coordinate of the position
+     * @param radius the (inclusive) radius to search
+     * @return true if and only if a point is in range; otherwise false
+     */
+    public boolean anyWithin(double x, double y, double radius) {
+        int fromColumn = this.column(x - radius);
+        int toColumn = this.column(x + radius);
+        int fromRow = this.row(y - radius);
+        int toRow = this.row(y + radius);
+        double radiusSquared = radius * radius;
+
+        double dx, dy;
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                for (int point = this.head[row * this.columns + column]; point != NONE; point = this.next[point]) {
+                    dx = this.x[point] - x;
+                    dy = this.y[point] - y;
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public double getCellSize() {
+        return this.cellSize;
+    }
+
+    private int cellAt(double x, double y) {
+        return this.row(y) * this.columns + this.column(x);
+    }
+
+    private int column(double x) {
+        return (int) Math.max(0, Math.min(this.columns - 1, Math.floor((x - this.minX) / this.cellSize)));
+    }
+
+    private int row(double y) {
+        return (int) Math.max(0, Math.min(this.rows - 1, Math.floor((y - this.minY) / this.cellSize)));
+    }
+}
@@ -0,0 +1,125 @@
+package com.grivera.util;
+
+import java.util.Arrays;
+
+/**
+ * A disjoint-set forest over the elements {@code 0..size()-1}, with union by size and path halving.
+ *
+ * <p>
+ * Used to track the connected components of a network while its nodes or edges are added.
+ * </p>
+ */
+public class UnionFind {
+    private int[] parent;
+    private int[] componentSize;
+    private int size;
+    private int componentCount;
+
+    public UnionFind() {
+        this(16);
+    }
+
+    public UnionFind(int capacity) {
+        this.parent = new int[Math.max(1, capacity)];
+        this.componentSize = new int[this.parent.length];
+    }
+
+    /**
+     * Adds a new element in a component of its own.
+     *
+     * @return the new element
+     */
+    public int add() {
+        if (this.size == this.parent.length) {
+            this.parent = Arrays.copyOf(this.parent, this.size * 2);
+            this.componentSize = Arrays.copyOf(this.componentSize, this.size * 2);
+        }
+        int element = this.size++;
+        this.parent[element] = element;
+        this.componentSize[element] = 1;
+        this.componentCount++;
+        return element;
+    }
+
+    /**
+     * Adds elements until there are the given number of elements.
+     *
+     * @param size the number of elements
+     */
+    public void ensureSize(int size) {
+        while (this.size < size) {
+            this.add();
+        }
+    }
+
+    public int find(int element) {
+        if (element < 0 || element >= this.size) {
+            throw new IndexOutOfBoundsException(String.format("Invalid element %d", element));
+        }
+        int[] parent = this.parent;
+        while (parent[element] != element) {
+            parent[element] = parent[parent[element]];
+            element = parent[element];
+        }
+        return element;
+    }
+
+    /**
+     * Merges the components of two elements.
+     *
+     * @return true if and only if the elements were in different components; otherwise false
+     */
+    public boolean union(int a, int b) {
+        int rootA = this.find(a);
+        int rootB = this.find(b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (this.componentSize[rootA] < this.componentSize[rootB]) {
+            int tmp = rootA;
+            rootA = rootB;
+            rootB = tmp;
+        }
+        this.parent[rootB] = rootA;
+        this.componentSize[rootA] += this.componentSize[rootB];
+        this.componentCount--;
+        return true;
+    }
+
+    public boolean connected(int a, int b) {
+        return this.find(a) == this.find(b);
+    }
+
+    /**
+     * Returns the number of elements in the component of an element.
+     *
+     * @param element the element
+     * @return the size of its component
+     */
+    public int componentSize(int element) {
+        return this.componentSize[this.find(element)];
+    }
+
+    public int getComponentCount() {
+        return this.componentCount;
+    }
+
+    /**
+     * Returns an element of the largest component (-1 if there are no elements).
+     *
+     * @return the root of the largest component
+     */
+    public int largestComponent() {
+        int largest = -1;
+        for (int element = 0; element < this.size; element++) {
+            if (this.parent[element] == element && (largest == -1 || this.componentSize[element] > this.componentSize[largest])) {
+                largest = element;
+            }
+        }
+        return largest;
+    }
+
+    public int size() {
+        return this.size;
+    }
+}